@@ -0,0 +1,155 @@
+package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+public class CachingProjectingList<E, P> extends AbstractList<E> {
+
+    private final List<P> delegate;
+
+    private final Function<P, E> wrap;
+    private final Function<E, P> unwrap;
+
+    private final boolean retainWrites;
+
+    private volatile Slot[] slots;
+
+    public CachingProjectingList(List<P> delegate, Function<P, E> wrap, Function<E, P> unwrap) {
+        this(delegate, wrap, unwrap, true);
+    }
+
+    public CachingProjectingList(List<P> delegate, Function<P, E> wrap, Function<E, P> unwrap, boolean retainWrites) {
+        this.delegate = delegate;
+        this.wrap = wrap;
+        this.unwrap = unwrap;
+        this.retainWrites = retainWrites;
+    }
+
+    public static <E, P> List<E> of(List<E> previous, List<P> delegate, Function<P, E> wrap, Function<E, P> unwrap) {
+        return of(previous, delegate, wrap, unwrap, true);
+    }
+
+    public static <E, P> List<E> ofConversions(List<E> previous, List<P> delegate, Function<P, E> wrap, Function<E, P> unwrap) {
+        return of(previous, delegate, wrap, unwrap, false);
+    }
+
+    private static <E, P> List<E> of(List<E> previous, List<P> delegate, Function<P, E> wrap, Function<E, P> unwrap, boolean retainWrites) {
+        if (delegate == null) {
+            return new ProjectingEmptyList<>();
+        } else if (previous instanceof CachingProjectingList<?, ?> && ((CachingProjectingList<?, ?>) previous).delegate == delegate) {
+            return previous;
+        }
+        return new CachingProjectingList<>(delegate, wrap, unwrap, retainWrites);
+    }
+
+    @Override
+    public E set(int index, E element) {
+        P value = unwrap.apply(element);
+        if (value == null) {
+            return remove(index);
+        }
+        E previous = lookup(index, delegate.set(index, value));
+        store(index, value, retainWrites ? element : null);
+        return previous;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        P value = unwrap.apply(element);
+        if (value != null) {
+            delegate.add(index, value);
+            Slot[] slots = this.slots;
+            if (slots != null && index < slots.length) {
+                slots = Arrays.copyOf(slots, Math.max(slots.length, delegate.size()));
+                System.arraycopy(slots, index, slots, index + 1, slots.length - index - 1);
+                slots[index] = retainWrites ? new Slot(value, element) : null;
+                this.slots = slots;
+            } else if (retainWrites) {
+                store(index, value, element);
+            }
+        }
+    }
+
+    @Override
+    public E remove(int index) {
+        E element = lookup(index, delegate.remove(index));
+        Slot[] slots = this.slots;
+        if (slots != null && index < slots.length) {
+            slots = slots.clone();
+            System.arraycopy(slots, index + 1, slots, index, slots.length - index - 1);
+            slots[slots.length - 1] = null;
+            this.slots = slots;
+        }
+        return element;
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        slots = null;
+    }
+
+    @Override
+    public E get(int index) {
+        P value = delegate.get(index);
+        E element = cached(index, value);
+        if (element == null) {
+            element = wrap.apply(value);
+            store(index, value, element);
+        }
+        return element;
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    private E lookup(int index, P value) {
+        E element = cached(index, value);
+        return element == null ? wrap.apply(value) : element;
+    }
+
+    private E cached(int index, P value) {
+        Slot[] slots = this.slots;
+        if (slots != null && index < slots.length) {
+            Slot slot = slots[index];
+            if (slot != null && slot.value == value) {
+                @SuppressWarnings("unchecked")
+                E element = (E) slot.element;
+                return element;
+            }
+        }
+        return null;
+    }
+
+    private void store(int index, P value, E element) {
+        Slot slot = element == null ? null : new Slot(value, element);
+        Slot[] slots = this.slots;
+        if (slot == null && (slots == null || index >= slots.length)) {
+            return;
+        }
+        if (slots == null) {
+            slots = new Slot[Math.max(index + 1, delegate.size())];
+        } else if (index >= slots.length) {
+            slots = Arrays.copyOf(slots, Math.max(index + 1, delegate.size()));
+        } else {
+            slots[index] = slot;
+            return;
+        }
+        slots[index] = slot;
+        this.slots = slots;
+    }
+
+    private static final class Slot {
+
+        private final Object value, element;
+
+        private Slot(Object value, Object element) {
+            this.value = value;
+            this.element = element;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+public class Conversions {
+
+    private Conversions() {
+        throw new UnsupportedOperationException();
+    }
+
+    public static BigInteger toBigInteger(Number value) {
+        if (value instanceof BigInteger) {
+            return (BigInteger) value;
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return BigInteger.valueOf(value.longValue());
+        } else {
+            return new BigInteger(value.toString());
+        }
+    }
+
+    public static BigDecimal toBigDecimal(Number value) {
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return BigDecimal.valueOf(value.longValue());
+        } else if (value instanceof BigInteger) {
+            return new BigDecimal((BigInteger) value);
+        } else if (value instanceof Double) {
+            return BigDecimal.valueOf(value.doubleValue());
+        } else {
+            return new BigDecimal(value.toString());
+        }
+    }
+
+    public static LocalDate toLocalDate(String value) {
+        if (value.length() == 10 && value.charAt(4) == '-' && value.charAt(7) == '-') {
+            int year = toDigits(value, 0, 4), month = toDigits(value, 5, 7), day = toDigits(value, 8, 10);
+            if (year >= 0 && month >= 0 && day >= 0) {
+                try {
+                    return LocalDate.of(year, month, day);
+                } catch (DateTimeException ignored) {
+                }
+            }
+        }
+        return LocalDate.parse(value);
+    }
+
+    private static int toDigits(String value, int from, int to) {
+        int result = 0;
+        for (int index = from; index < to; index++) {
+            char digit = value.charAt(index);
+            if (digit < '0' || digit > '9') {
+                return -1;
+            }
+            result = result * 10 + digit - '0';
+        }
+        return result;
+    }
+}
@@ -0,0 +1,46 @@
+package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+
+public class CopyContext extends IdentityHashMap<Object, Object> {
+
+    private final boolean memoize;
+
+    private final Deque<Runnable> pending = new ArrayDeque<>();
+
+    public CopyContext() {
+        memoize = true;
+    }
+
+    public CopyContext(boolean memoize) {
+        this.memoize = memoize;
+    }
+
+    public void defer(Runnable task) {
+        pending.addLast(task);
+    }
+
+    public void complete() {
+        Runnable task;
+        while ((task = pending.pollFirst()) != null) {
+            task.run();
+        }
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return memoize && super.containsKey(key);
+    }
+
+    @Override
+    public Object get(Object key) {
+        return memoize ? super.get(key) : null;
+    }
+
+    @Override
+    public Object put(Object key, Object value) {
+        return memoize ? super.put(key, value) : null;
+    }
+}
@@ -0,0 +1,21 @@
+package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api;
+
+public class MemoizedConversion<V, C> {
+
+    private final V value;
+
+    private final C conversion;
+
+    public MemoizedConversion(V value, C conversion) {
+        this.value = value;
+        this.conversion = conversion;
+    }
+
+    public boolean isConversionOf(V value) {
+        return this.value == value;
+    }
+
+    public C getConversion() {
+        return conversion;
+    }
+}
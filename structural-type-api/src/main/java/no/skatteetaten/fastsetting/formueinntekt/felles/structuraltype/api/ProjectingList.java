@@ -1,8 +1,19 @@
 package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api;
 
 import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 public class ProjectingList<E, P> extends AbstractList<E> {
 
@@ -18,7 +29,13 @@ public class ProjectingList<E, P> extends AbstractList<E> {
     }
 
     public static <E, P> List<E> of(List<P> delegate, Function<P, E> wrap, Function<E, P> unwrap) {
-        return delegate == null ? new ProjectingEmptyList<>() : new ProjectingList<>(delegate, wrap, unwrap);
+        if (delegate == null) {
+            return new ProjectingEmptyList<>();
+        } else if (delegate instanceof RandomAccess) {
+            return new RandomAccessProjectingList<>(delegate, wrap, unwrap);
+        } else {
+            return new ProjectingList<>(delegate, wrap, unwrap);
+        }
     }
 
     @Override
@@ -35,11 +52,56 @@ public class ProjectingList<E, P> extends AbstractList<E> {
         }
     }
 
+    @Override
+    public boolean addAll(Collection<? extends E> elements) {
+        return delegate.addAll(unwrap(elements));
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends E> elements) {
+        return delegate.addAll(index, unwrap(elements));
+    }
+
     @Override
     public E remove(int index) {
         return wrap.apply(delegate.remove(index));
     }
 
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        return delegate.removeIf(value -> filter.test(wrap.apply(value)));
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<E> operator) {
+        ListIterator<P> it = delegate.listIterator();
+        while (it.hasNext()) {
+            P value = unwrap.apply(operator.apply(wrap.apply(it.next())));
+            if (value == null) {
+                it.remove();
+            } else {
+                it.set(value);
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void sort(Comparator<? super E> comparator) {
+        Object[] elements = toArray();
+        Arrays.sort(elements, (Comparator<Object>) comparator);
+        ListIterator<P> it = delegate.listIterator();
+        for (Object element : elements) {
+            it.next();
+            it.set(unwrap.apply((E) element));
+        }
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
     @Override
     public E get(int index) {
         return wrap.apply(delegate.get(index));
@@ -49,4 +111,101 @@ public class ProjectingList<E, P> extends AbstractList<E> {
     public int size() {
         return delegate.size();
     }
+
+    @Override
+    public Iterator<E> iterator() {
+        Iterator<P> it = delegate.iterator();
+        return new Iterator<E>() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public E next() {
+                return wrap.apply(it.next());
+            }
+
+            @Override
+            public void remove() {
+                it.remove();
+            }
+        };
+    }
+
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        delegate.forEach(value -> action.accept(wrap.apply(value)));
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return new ProjectingSpliterator<>(delegate.spliterator(), wrap);
+    }
+
+    @Override
+    public List<E> subList(int fromIndex, int toIndex) {
+        return of(delegate.subList(fromIndex, toIndex), wrap, unwrap);
+    }
+
+    private List<P> unwrap(Collection<? extends E> elements) {
+        List<P> values = new ArrayList<>(elements.size());
+        for (E element : elements) {
+            P value = unwrap.apply(element);
+            if (value != null) {
+                values.add(value);
+            }
+        }
+        return values;
+    }
+
+    private static class RandomAccessProjectingList<E, P> extends ProjectingList<E, P> implements RandomAccess {
+
+        private RandomAccessProjectingList(List<P> delegate, Function<P, E> wrap, Function<E, P> unwrap) {
+            super(delegate, wrap, unwrap);
+        }
+    }
+
+    private static class ProjectingSpliterator<E, P> implements Spliterator<E> {
+
+        private final Spliterator<P> delegate;
+
+        private final Function<P, E> wrap;
+
+        private ProjectingSpliterator(Spliterator<P> delegate, Function<P, E> wrap) {
+            this.delegate = delegate;
+            this.wrap = wrap;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            return delegate.tryAdvance(value -> action.accept(wrap.apply(value)));
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            delegate.forEachRemaining(value -> action.accept(wrap.apply(value)));
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            Spliterator<P> split = delegate.trySplit();
+            return split == null ? null : new ProjectingSpliterator<>(split, wrap);
+        }
+
+        @Override
+        public long estimateSize() {
+            return delegate.estimateSize();
+        }
+
+        @Override
+        public long getExactSizeIfKnown() {
+            return delegate.getExactSizeIfKnown();
+        }
+
+        @Override
+        public int characteristics() {
+            return delegate.characteristics() & (Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED);
+        }
+    }
 }
@@ -0,0 +1,62 @@
+package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class TypeDispatcher<V> extends ClassValue<V> {
+
+    private final boolean exact;
+
+    private final V fallback;
+
+    private final Class<?>[] types;
+    private final Object[] values;
+
+    private TypeDispatcher(boolean exact, V fallback, Class<?>[] types, Object[] values) {
+        this.exact = exact;
+        this.fallback = fallback;
+        this.types = types;
+        this.values = values;
+    }
+
+    public static <V> Builder<V> builder(boolean exact, V fallback) {
+        return new Builder<>(exact, fallback);
+    }
+
+    @Override
+    protected V computeValue(Class<?> type) {
+        for (int index = 0; index < types.length; index++) {
+            if (exact ? types[index] == type : types[index].isAssignableFrom(type)) {
+                @SuppressWarnings("unchecked")
+                V value = (V) values[index];
+                return value;
+            }
+        }
+        return fallback;
+    }
+
+    public static final class Builder<V> {
+
+        private final boolean exact;
+
+        private final V fallback;
+
+        private final List<Class<?>> types = new ArrayList<>();
+        private final List<V> values = new ArrayList<>();
+
+        private Builder(boolean exact, V fallback) {
+            this.exact = exact;
+            this.fallback = fallback;
+        }
+
+        public Builder<V> with(Class<?> type, V value) {
+            types.add(type);
+            values.add(value);
+            return this;
+        }
+
+        public TypeDispatcher<V> build() {
+            return new TypeDispatcher<>(exact, fallback, types.toArray(new Class<?>[0]), values.toArray());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.benchmark;
+
+import java.util.List;
+import java.util.Objects;
+
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.benchmark.sample.v1.Address;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.benchmark.sample.v1.Asset;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.benchmark.sample.v1.TaxReturn;
+
+class Baseline {
+
+    private Baseline() {
+        throw new UnsupportedOperationException("This class is not meant for instantiation");
+    }
+
+    static TaxReturn copy(TaxReturn original) {
+        TaxReturn copy = new TaxReturn();
+        copy.setIdentifier(original.getIdentifier());
+        copy.setYear(original.getYear());
+        copy.setIncome(original.getIncome());
+        copy.setCategory(original.getCategory());
+        if (original.getAddress() != null) {
+            Address address = new Address();
+            address.setStreet(original.getAddress().getStreet());
+            address.setPostalCode(original.getAddress().getPostalCode());
+            address.setCity(original.getAddress().getCity());
+            copy.setAddress(address);
+        }
+        for (Asset asset : original.getAsset()) {
+            Asset duplicate = new Asset();
+            duplicate.setDescription(asset.getDescription());
+            duplicate.setValue(asset.getValue());
+            copy.getAsset().add(duplicate);
+        }
+        return copy;
+    }
+
+    static int hashCode(TaxReturn value) {
+        int hashCode = Objects.hash(value.getIdentifier(), value.getYear(), value.getIncome(), value.getCategory());
+        if (value.getAddress() != null) {
+            hashCode = hashCode * 31 + Objects.hash(
+                value.getAddress().getStreet(),
+                value.getAddress().getPostalCode(),
+                value.getAddress().getCity()
+            );
+        }
+        for (Asset asset : value.getAsset()) {
+            hashCode = hashCode * 31 + Objects.hash(asset.getDescription(), asset.getValue());
+        }
+        return hashCode;
+    }
+
+    static boolean equals(TaxReturn left, TaxReturn right) {
+        if (!Objects.equals(left.getIdentifier(), right.getIdentifier())
+            || left.getYear() != right.getYear()
+            || !Objects.equals(left.getIncome(), right.getIncome())
+            || left.getCategory() != right.getCategory()) {
+            return false;
+        }
+        if (left.getAddress() == null || right.getAddress() == null) {
+            if (left.getAddress() != right.getAddress()) {
+                return false;
+            }
+        } else if (!Objects.equals(left.getAddress().getStreet(), right.getAddress().getStreet())
+            || !Objects.equals(left.getAddress().getPostalCode(), right.getAddress().getPostalCode())
+            || !Objects.equals(left.getAddress().getCity(), right.getAddress().getCity())) {
+            return false;
+        }
+        List<Asset> leftAssets = left.getAsset(), rightAssets = right.getAsset();
+        if (leftAssets.size() != rightAssets.size()) {
+            return false;
+        }
+        for (int index = 0; index < leftAssets.size(); index++) {
+            if (!Objects.equals(leftAssets.get(index).getDescription(), rightAssets.get(index).getDescription())
+                || !Objects.equals(leftAssets.get(index).getValue(), rightAssets.get(index).getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static String toString(TaxReturn value) {
+        StringBuilder builder = new StringBuilder("TaxReturn")
+            .append(" - identifier: ").append(value.getIdentifier())
+            .append(" - year: ").append(value.getYear())
+            .append(" - income: ").append(value.getIncome())
+            .append(" - category: ").append(value.getCategory())
+            .append(" - address: ");
+        if (value.getAddress() == null) {
+            builder.append("null");
+        } else {
+            builder.append("Address")
+                .append(" - street: ").append(value.getAddress().getStreet())
+                .append(" - postalCode: ").append(value.getAddress().getPostalCode())
+                .append(" - city: ").append(value.getAddress().getCity());
+        }
+        builder.append(" - asset: [");
+        for (int index = 0; index < value.getAsset().size(); index++) {
+            Asset asset = value.getAsset().get(index);
+            builder.append(index).append(": Asset")
+                .append(" - description: ").append(asset.getDescription())
+                .append(" - value: ").append(asset.getValue());
+        }
+        return builder.append("]").toString();
+    }
+}
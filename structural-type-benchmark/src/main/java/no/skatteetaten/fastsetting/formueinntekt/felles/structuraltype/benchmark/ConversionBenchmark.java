@@ -0,0 +1,86 @@
+package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.benchmark;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api.Conversions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConversionBenchmark {
+
+    private Number integral, decimal, big;
+
+    private String date;
+
+    @Setup
+    public void setup() {
+        integral = 123_456_789L;
+        decimal = 12_345.67d;
+        big = BigInteger.valueOf(123_456_789L);
+        date = "2020-02-29";
+    }
+
+    @Benchmark
+    public BigDecimal integralToBigDecimalByString() {
+        return new BigDecimal(integral.toString());
+    }
+
+    @Benchmark
+    public BigDecimal integralToBigDecimal() {
+        return Conversions.toBigDecimal(integral);
+    }
+
+    @Benchmark
+    public BigDecimal decimalToBigDecimalByString() {
+        return new BigDecimal(decimal.toString());
+    }
+
+    @Benchmark
+    public BigDecimal decimalToBigDecimal() {
+        return Conversions.toBigDecimal(decimal);
+    }
+
+    @Benchmark
+    public BigDecimal bigToBigDecimalByString() {
+        return new BigDecimal(big.toString());
+    }
+
+    @Benchmark
+    public BigDecimal bigToBigDecimal() {
+        return Conversions.toBigDecimal(big);
+    }
+
+    @Benchmark
+    public BigInteger integralToBigIntegerByString() {
+        return new BigInteger(integral.toString());
+    }
+
+    @Benchmark
+    public BigInteger integralToBigInteger() {
+        return Conversions.toBigInteger(integral);
+    }
+
+    @Benchmark
+    public LocalDate stringToLocalDateByParse() {
+        return LocalDate.parse(date);
+    }
+
+    @Benchmark
+    public LocalDate stringToLocalDate() {
+        return Conversions.toLocalDate(date);
+    }
+}
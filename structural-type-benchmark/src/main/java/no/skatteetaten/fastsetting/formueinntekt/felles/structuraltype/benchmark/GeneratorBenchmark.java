@@ -0,0 +1,105 @@
+package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.JavaFile;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generator.BeanAccessResolver;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generator.GenerationPhase;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generator.JaxbFallbackBeanAccessResolver;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generator.JaxbSimpleTypeNameGrouper;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generator.JaxbStructuralResolver;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generator.SimpleTypeResolver;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generator.StructuralType;
+
+public class GeneratorBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        Path target = Paths.get(args.length > 0 ? args[0] : "generator-benchmark.json");
+        int[] sizes = Arrays.stream((args.length > 1 ? args[1] : "100,1000,10000").split(","))
+            .mapToInt(Integer::parseInt)
+            .toArray();
+        int warmups = args.length > 2 ? Integer.parseInt(args[2]) : 3, iterations = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : 1;
+        ExecutorService executorService = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        StringJoiner schemas = new StringJoiner(",\n", "[\n", "\n  ]");
+        for (int size : sizes) {
+            System.out.println("Compiling synthetic schema of " + size + " classes");
+            SyntheticSchema schema = SyntheticSchema.of(size);
+            Map<GenerationPhase, long[]> phases = new EnumMap<>(GenerationPhase.class);
+            long[] totals = new long[iterations];
+            int[] current = new int[1], files = new int[1];
+            StructuralType structuralType = structuralTypeOf(schema.getClassLoader()).withParallelism(executorService).withPhaseListener((phase, duration) -> {
+                if (current[0] >= 0) {
+                    phases.computeIfAbsent(phase, ignored -> new long[iterations])[current[0]] += duration;
+                }
+            });
+            for (int iteration = -warmups; iteration < iterations; iteration++) {
+                current[0] = iteration;
+                long started = System.nanoTime();
+                Map<ClassName, JavaFile> result = structuralType.make(schema.getRoots());
+                long elapsed = System.nanoTime() - started;
+                if (iteration >= 0) {
+                    totals[iteration] = elapsed;
+                    files[0] = result.size();
+                }
+                System.out.printf(Locale.ROOT, "%s %d of %d classes: %.3f ms%n",
+                    iteration < 0 ? "Warmup" : "Iteration",
+                    iteration < 0 ? warmups + iteration + 1 : iteration + 1,
+                    schema.getClasses(),
+                    elapsed / 1e6);
+            }
+            StringJoiner timings = new StringJoiner(",\n", "{\n", "\n      }");
+            phases.forEach((phase, durations) -> timings.add("        \"" + phase.name() + "\": " + statistics(durations)));
+            schemas.add("    {\n"
+                + "      \"classes\": " + schema.getClasses() + ",\n"
+                + "      \"files\": " + files[0] + ",\n"
+                + "      \"total\": " + statistics(totals) + ",\n"
+                + "      \"phases\": " + timings + "\n"
+                + "    }");
+        }
+        if (executorService != null) {
+            executorService.shutdown();
+        }
+        Files.writeString(target, "{\n"
+            + "  \"unit\": \"ms\",\n"
+            + "  \"java\": \"" + System.getProperty("java.version") + "\",\n"
+            + "  \"warmups\": " + warmups + ",\n"
+            + "  \"iterations\": " + iterations + ",\n"
+            + "  \"threads\": " + threads + ",\n"
+            + "  \"schemas\": " + schemas + "\n"
+            + "}\n", StandardCharsets.UTF_8);
+        System.out.println("Wrote results to " + target.toAbsolutePath());
+    }
+
+    private static StructuralType structuralTypeOf(ClassLoader classLoader) {
+        return new StructuralType()
+            .withStructuralResolver(JaxbStructuralResolver.ofJakarta(classLoader))
+            .withAccessResolver(JaxbFallbackBeanAccessResolver.ofJakarta(new BeanAccessResolver(true, true), classLoader))
+            .withGrouper(JaxbSimpleTypeNameGrouper.ofJakarta(classLoader))
+            .withTypeResolver(new SimpleTypeResolver(SimpleTypeResolver.EnumHandler.UsingJaxb.ofJakarta(classLoader)));
+    }
+
+    private static String statistics(long[] durations) {
+        long[] sorted = durations.clone();
+        Arrays.sort(sorted);
+        Function<Long, String> millis = value -> String.format(Locale.ROOT, "%.3f", value / (double) TimeUnit.MILLISECONDS.toNanos(1));
+        return "{\"mean\": " + millis.apply((long) Arrays.stream(sorted).average().orElse(0))
+            + ", \"median\": " + millis.apply(sorted[sorted.length / 2])
+            + ", \"min\": " + millis.apply(sorted[0])
+            + ", \"max\": " + millis.apply(sorted[sorted.length - 1]) + "}";
+    }
+}
@@ -0,0 +1,90 @@
+package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.benchmark.sample.AssetStructure;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.benchmark.sample.TaxReturnStructure;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.benchmark.sample.v1.Asset;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.benchmark.sample.v1.TaxReturn;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProjectingListBenchmark {
+
+    @Param({"10", "1000"})
+    public int size;
+
+    private TaxReturn bean;
+
+    private TaxReturnStructure projection;
+
+    private Asset asset;
+
+    private AssetStructure assetProjection;
+
+    @Setup
+    public void setup() {
+        bean = Samples.taxReturn(size);
+        projection = TaxReturnStructure.of(Samples.taxReturn(size));
+        asset = Samples.asset(size);
+        assetProjection = AssetStructure.of(Samples.asset(size));
+    }
+
+    @Benchmark
+    public void baselineGet(Blackhole blackhole) {
+        List<Asset> assets = bean.getAsset();
+        for (int index = 0; index < assets.size(); index++) {
+            blackhole.consume(assets.get(index).getValue());
+        }
+    }
+
+    @Benchmark
+    public void projectionGet(Blackhole blackhole) {
+        List<AssetStructure> assets = projection.getAsset();
+        for (int index = 0; index < assets.size(); index++) {
+            blackhole.consume(assets.get(index).getValue());
+        }
+    }
+
+    @Benchmark
+    public void baselineIterate(Blackhole blackhole) {
+        for (Asset asset : bean.getAsset()) {
+            blackhole.consume(asset.getValue());
+        }
+    }
+
+    @Benchmark
+    public void projectionIterate(Blackhole blackhole) {
+        for (AssetStructure asset : projection.getAsset()) {
+            blackhole.consume(asset.getValue());
+        }
+    }
+
+    @Benchmark
+    public Object baselineAdd() {
+        List<Asset> assets = bean.getAsset();
+        assets.add(asset);
+        return assets.remove(assets.size() - 1);
+    }
+
+    @Benchmark
+    public Object projectionAdd() {
+        List<AssetStructure> assets = projection.getAsset();
+        assets.add(assetProjection);
+        return assets.remove(assets.size() - 1);
+    }
+}
@@ -0,0 +1,125 @@
+package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.benchmark;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.benchmark.sample.CategoryEnumeration;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.benchmark.sample.TaxReturnStructure;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.benchmark.sample.template.TaxReturnTemplate;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.benchmark.sample.v1.Category;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.benchmark.sample.v1.TaxReturn;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProjectionBenchmark {
+
+    private TaxReturn bean;
+
+    private TaxReturnStructure projection, template, remarked, remarkedTemplate;
+
+    private BigDecimal income;
+
+    @Setup
+    public void setup() {
+        bean = Samples.taxReturn(0);
+        projection = TaxReturnStructure.of(Samples.taxReturn(0));
+        template = TaxReturnStructure.of(Samples.taxReturn(0)).copyToTemplate();
+        income = new BigDecimal("712345.50");
+        no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.benchmark.sample.v2.TaxReturn remark =
+            new no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.benchmark.sample.v2.TaxReturn();
+        remark.setRemark("Corrected after review");
+        remarked = TaxReturnStructure.of(remark);
+        remarkedTemplate = remarked.copyToTemplate();
+    }
+
+    @Benchmark
+    public void baselineGetter(Blackhole blackhole) {
+        blackhole.consume(bean.getIdentifier());
+        blackhole.consume(bean.getYear());
+        blackhole.consume(bean.getIncome());
+        blackhole.consume(bean.getCategory());
+        blackhole.consume(bean.getAddress().getCity());
+    }
+
+    @Benchmark
+    public void projectionGetter(Blackhole blackhole) {
+        blackhole.consume(projection.getIdentifier());
+        blackhole.consume(projection.getYear());
+        blackhole.consume(projection.getIncome());
+        blackhole.consume(projection.getCategory());
+        blackhole.consume(projection.getAddress().getCity());
+    }
+
+    @Benchmark
+    public void templateGetter(Blackhole blackhole) {
+        blackhole.consume(template.getIdentifier());
+        blackhole.consume(template.getYear());
+        blackhole.consume(template.getIncome());
+        blackhole.consume(template.getCategory());
+        blackhole.consume(template.getAddress().getCity());
+    }
+
+    @Benchmark
+    public void projectionOptionalGetter(Blackhole blackhole) {
+        blackhole.consume(remarked.getRemark().orElse(null));
+        blackhole.consume(projection.getRemark().orElse(null));
+    }
+
+    @Benchmark
+    public void projectionNullableGetter(Blackhole blackhole) {
+        blackhole.consume(remarked.peekRemark());
+        blackhole.consume(projection.peekRemark());
+    }
+
+    @Benchmark
+    public void templateOptionalGetter(Blackhole blackhole) {
+        blackhole.consume(remarkedTemplate.getRemark().orElse(null));
+    }
+
+    @Benchmark
+    public void templateNullableGetter(Blackhole blackhole) {
+        blackhole.consume(remarkedTemplate.peekRemark());
+    }
+
+    @Benchmark
+    public TaxReturn baselineSetter() {
+        bean.setIdentifier("01019054321");
+        bean.setYear(2021);
+        bean.setIncome(income);
+        bean.setCategory(Category.BUSINESS);
+        bean.getAddress().setCity("Bergen");
+        return bean;
+    }
+
+    @Benchmark
+    public TaxReturnStructure projectionSetter() {
+        projection.setIdentifier("01019054321");
+        projection.setYear(2021);
+        projection.setIncome(income);
+        projection.setCategory(CategoryEnumeration.BUSINESS);
+        projection.getAddress().setCity("Bergen");
+        return projection;
+    }
+
+    @Benchmark
+    public TaxReturnStructure templateSetter() {
+        template.setIdentifier("01019054321");
+        template.setYear(2021);
+        template.setIncome(income);
+        template.setCategory(CategoryEnumeration.BUSINESS);
+        template.getAddress().setCity("Bergen");
+        return template;
+    }
+}
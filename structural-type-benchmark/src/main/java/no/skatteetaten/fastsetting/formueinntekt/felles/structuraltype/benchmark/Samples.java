@@ -0,0 +1,39 @@
+package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.benchmark;
+
+import java.math.BigDecimal;
+
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.benchmark.sample.v1.Address;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.benchmark.sample.v1.Asset;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.benchmark.sample.v1.Category;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.benchmark.sample.v1.TaxReturn;
+
+class Samples {
+
+    private Samples() {
+        throw new UnsupportedOperationException("This class is not meant for instantiation");
+    }
+
+    static TaxReturn taxReturn(int assets) {
+        TaxReturn taxReturn = new TaxReturn();
+        taxReturn.setIdentifier("01019012345");
+        taxReturn.setYear(2020);
+        taxReturn.setIncome(new BigDecimal("612345.50"));
+        taxReturn.setCategory(Category.PERSONAL);
+        Address address = new Address();
+        address.setStreet("Skattegata 1");
+        address.setPostalCode("0150");
+        address.setCity("Oslo");
+        taxReturn.setAddress(address);
+        for (int index = 0; index < assets; index++) {
+            taxReturn.getAsset().add(asset(index));
+        }
+        return taxReturn;
+    }
+
+    static Asset asset(int index) {
+        Asset asset = new Asset();
+        asset.setDescription("Asset " + index);
+        asset.setValue(BigDecimal.valueOf(index * 1000L, 2));
+        return asset;
+    }
+}
@@ -0,0 +1,100 @@
+package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.benchmark.sample.TaxReturnStructure;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.benchmark.sample.v1.TaxReturn;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StructureBenchmark {
+
+    @Param({"0", "10", "100"})
+    public int assets;
+
+    private TaxReturn bean, otherBean;
+
+    private TaxReturnStructure projection, otherProjection, template, otherTemplate;
+
+    @Setup
+    public void setup() {
+        bean = Samples.taxReturn(assets);
+        otherBean = Samples.taxReturn(assets);
+        projection = TaxReturnStructure.of(Samples.taxReturn(assets));
+        otherProjection = TaxReturnStructure.of(Samples.taxReturn(assets));
+        template = projection.copyToTemplate();
+        otherTemplate = projection.copyToTemplate();
+    }
+
+    @Benchmark
+    public TaxReturn baselineCopy() {
+        return Baseline.copy(bean);
+    }
+
+    @Benchmark
+    public TaxReturnStructure projectionCopyToTemplate() {
+        return projection.copyToTemplate();
+    }
+
+    @Benchmark
+    public TaxReturnStructure projectionCopy() {
+        return projection.copy();
+    }
+
+    @Benchmark
+    public int baselineHashCode() {
+        return Baseline.hashCode(bean);
+    }
+
+    @Benchmark
+    public int projectionHashCode() {
+        return projection.hashCode();
+    }
+
+    @Benchmark
+    public int templateHashCode() {
+        return template.hashCode();
+    }
+
+    @Benchmark
+    public boolean baselineEquals() {
+        return Baseline.equals(bean, otherBean);
+    }
+
+    @Benchmark
+    public boolean projectionEquals() {
+        return projection.equals(otherProjection);
+    }
+
+    @Benchmark
+    public boolean templateEquals() {
+        return template.equals(otherTemplate);
+    }
+
+    @Benchmark
+    public String baselineToString() {
+        return Baseline.toString(bean);
+    }
+
+    @Benchmark
+    public String projectionToString() {
+        return projection.toString();
+    }
+
+    @Benchmark
+    public String templateToString() {
+        return template.toString();
+    }
+}
@@ -0,0 +1,233 @@
+package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+class SyntheticSchema {
+
+    static final String PACKAGE = "no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.benchmark.synthetic";
+
+    private static final int FAN_OUT = 4, DEPTH = 5, FAMILY = 1 + FAN_OUT * DEPTH;
+
+    private final ClassLoader classLoader;
+
+    private final List<Class<?>> roots;
+
+    private final int classes;
+
+    private SyntheticSchema(ClassLoader classLoader, List<Class<?>> roots, int classes) {
+        this.classLoader = classLoader;
+        this.roots = roots;
+        this.classes = classes;
+    }
+
+    static SyntheticSchema of(int classes) {
+        int families = Math.max(1, (classes / 2 - 2) / FAMILY);
+        Map<String, String> sources = new HashMap<>();
+        for (int version = 1; version <= 2; version++) {
+            String pkg = PACKAGE + ".v" + version;
+            sources.put(pkg + ".Code", code(pkg, version));
+            sources.put(pkg + ".Document", document(pkg));
+            for (int family = 0; family < families; family++) {
+                sources.put(pkg + ".Family" + family, root(pkg, version, family, families));
+                for (int variant = 0; variant < FAN_OUT; variant++) {
+                    for (int level = 1; level <= DEPTH; level++) {
+                        sources.put(pkg + "." + variant(family, variant, level), sub(pkg, version, family, variant, level));
+                    }
+                }
+            }
+        }
+        ClassLoader classLoader = compile(sources);
+        List<Class<?>> roots = new ArrayList<>();
+        try {
+            roots.add(Class.forName(PACKAGE + ".v1.Document", false, classLoader));
+            roots.add(Class.forName(PACKAGE + ".v2.Document", false, classLoader));
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+        return new SyntheticSchema(classLoader, roots, sources.size());
+    }
+
+    ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    List<Class<?>> getRoots() {
+        return roots;
+    }
+
+    int getClasses() {
+        return classes;
+    }
+
+    private static String variant(int family, int variant, int level) {
+        return "Family" + family + "Variant" + variant + "Level" + level;
+    }
+
+    private static String code(String pkg, int version) {
+        return "package " + pkg + ";\n"
+            + "@jakarta.xml.bind.annotation.XmlType(name = \"Code\")\n"
+            + "@jakarta.xml.bind.annotation.XmlEnum\n"
+            + "public enum Code { FIRST, SECOND, THIRD" + (version == 2 ? ", FOURTH" : "") + " }\n";
+    }
+
+    private static String document(String pkg) {
+        StringBuilder builder = header(pkg, "Document", null, List.of());
+        property(builder, "String", "identifier", true);
+        property(builder, "Family0", "family", true);
+        return builder.append("}\n").toString();
+    }
+
+    private static String root(String pkg, int version, int family, int families) {
+        List<String> subclasses = new ArrayList<>();
+        for (int variant = 0; variant < FAN_OUT; variant++) {
+            subclasses.add(variant(family, variant, 1));
+        }
+        StringBuilder builder = header(pkg, "Family" + family, null, subclasses);
+        property(builder, "String", "identifier", true);
+        property(builder, "java.math.BigDecimal", "amount", true);
+        property(builder, version == 1 ? "int" : "long", "count", true);
+        property(builder, "Code", "code", false);
+        if (version == 2) {
+            property(builder, "String", "note", false);
+        }
+        for (int child = 2 * family + 1; child <= 2 * family + 2 && child < families; child++) {
+            if (child % 2 == 0) {
+                list(builder, "Family" + child, "child" + child);
+            } else {
+                property(builder, "Family" + child, "child" + child, false);
+            }
+        }
+        return builder.append("}\n").toString();
+    }
+
+    private static String sub(String pkg, int version, int family, int variant, int level) {
+        StringBuilder builder = header(
+            pkg,
+            variant(family, variant, level),
+            level == 1 ? "Family" + family : variant(family, variant, level - 1),
+            level == DEPTH ? List.of() : List.of(variant(family, variant, level + 1))
+        );
+        property(builder, level % 2 == 0 ? "java.time.LocalDate" : "String", "value" + level, true);
+        if (version == 2 && level % 3 == 0) {
+            property(builder, "Integer", "extra" + level, false);
+        }
+        return builder.append("}\n").toString();
+    }
+
+    private static StringBuilder header(String pkg, String name, String superClass, List<String> subclasses) {
+        StringBuilder builder = new StringBuilder("package ").append(pkg).append(";\n");
+        builder.append("@jakarta.xml.bind.annotation.XmlAccessorType(jakarta.xml.bind.annotation.XmlAccessType.FIELD)\n");
+        builder.append("@jakarta.xml.bind.annotation.XmlType(name = \"").append(name).append("\")\n");
+        if (!subclasses.isEmpty()) {
+            StringJoiner joiner = new StringJoiner(", ", "@jakarta.xml.bind.annotation.XmlSeeAlso({", "})\n");
+            subclasses.forEach(subclass -> joiner.add(subclass + ".class"));
+            builder.append(joiner);
+        }
+        builder.append("public class ").append(name);
+        if (superClass != null) {
+            builder.append(" extends ").append(superClass);
+        }
+        return builder.append(" {\n");
+    }
+
+    private static void property(StringBuilder builder, String type, String name, boolean required) {
+        String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        builder.append("  @jakarta.xml.bind.annotation.XmlElement(required = ").append(required).append(")\n");
+        builder.append("  protected ").append(type).append(" ").append(name).append(";\n");
+        builder.append("  public ").append(type).append(" get").append(capitalized).append("() { return ").append(name).append("; }\n");
+        builder.append("  public void set").append(capitalized).append("(").append(type).append(" value) { this.").append(name).append(" = value; }\n");
+    }
+
+    private static void list(StringBuilder builder, String type, String name) {
+        String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        builder.append("  protected java.util.List<").append(type).append("> ").append(name).append(";\n");
+        builder.append("  public java.util.List<").append(type).append("> get").append(capitalized).append("() {\n");
+        builder.append("    if (").append(name).append(" == null) { ").append(name).append(" = new java.util.ArrayList<>(); }\n");
+        builder.append("    return ").append(name).append(";\n");
+        builder.append("  }\n");
+    }
+
+    private static ClassLoader compile(Map<String, String> sources) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("Synthetic schemas require a JDK to compile");
+        }
+        List<JavaFileObject> files = new ArrayList<>();
+        sources.forEach((name, source) -> files.add(new SimpleJavaFileObject(
+            URI.create("string:///" + name.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension),
+            JavaFileObject.Kind.SOURCE
+        ) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        }));
+        Map<String, ByteArrayOutputStream> targets = new HashMap<>();
+        StringBuilder diagnostics = new StringBuilder();
+        try (JavaFileManager manager = new ForwardingJavaFileManager<StandardJavaFileManager>(
+            compiler.getStandardFileManager(null, null, null)
+        ) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(
+                Location location, String className,
+                JavaFileObject.Kind kind, FileObject sibling
+            ) {
+                return new SimpleJavaFileObject(URI.create("bytes:///" + className.replace('.', '/')), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        return targets.computeIfAbsent(className, ignored -> new ByteArrayOutputStream());
+                    }
+                };
+            }
+        }) {
+            if (!compiler.getTask(new Writer() {
+                @Override
+                public void write(char[] cbuf, int off, int len) {
+                    diagnostics.append(cbuf, off, len);
+                }
+
+                @Override
+                public void flush() {
+                }
+
+                @Override
+                public void close() {
+                }
+            }, manager, null, List.of("-proc:none"), null, files).call()) {
+                throw new IllegalStateException("Failed to compile synthetic schema:\n" + diagnostics);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new ClassLoader(SyntheticSchema.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                ByteArrayOutputStream target = targets.get(name);
+                if (target == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                byte[] bytes = target.toByteArray();
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+        };
+    }
+}
@@ -0,0 +1,35 @@
+package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.benchmark.sample.v1;
+
+import java.math.BigDecimal;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlType;
+
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlType(name = "Asset", propOrder = {"description", "value"})
+public class Asset {
+
+    @XmlElement(required = true)
+    protected String description;
+
+    @XmlElement(required = true)
+    protected BigDecimal value;
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public BigDecimal getValue() {
+        return value;
+    }
+
+    public void setValue(BigDecimal value) {
+        this.value = value;
+    }
+}
@@ -0,0 +1,16 @@
+package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.benchmark.sample.v1;
+
+import jakarta.xml.bind.annotation.XmlEnum;
+import jakarta.xml.bind.annotation.XmlEnumValue;
+import jakarta.xml.bind.annotation.XmlType;
+
+@XmlType(name = "Category")
+@XmlEnum
+public enum Category {
+
+    @XmlEnumValue("personal")
+    PERSONAL,
+
+    @XmlEnumValue("business")
+    BUSINESS
+}
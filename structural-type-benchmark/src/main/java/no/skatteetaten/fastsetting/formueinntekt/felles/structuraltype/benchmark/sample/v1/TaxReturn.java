@@ -0,0 +1,79 @@
+package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.benchmark.sample.v1;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlType;
+
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlType(name = "TaxReturn", propOrder = {"identifier", "year", "income", "category", "address", "asset"})
+public class TaxReturn {
+
+    @XmlElement(required = true)
+    protected String identifier;
+
+    @XmlElement(required = true)
+    protected int year;
+
+    @XmlElement(required = true)
+    protected BigDecimal income;
+
+    @XmlElement(required = true)
+    protected Category category;
+
+    @XmlElement(required = true)
+    protected Address address;
+
+    protected List<Asset> asset;
+
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    public void setIdentifier(String identifier) {
+        this.identifier = identifier;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public void setYear(int year) {
+        this.year = year;
+    }
+
+    public BigDecimal getIncome() {
+        return income;
+    }
+
+    public void setIncome(BigDecimal income) {
+        this.income = income;
+    }
+
+    public Category getCategory() {
+        return category;
+    }
+
+    public void setCategory(Category category) {
+        this.category = category;
+    }
+
+    public Address getAddress() {
+        return address;
+    }
+
+    public void setAddress(Address address) {
+        this.address = address;
+    }
+
+    public List<Asset> getAsset() {
+        if (asset == null) {
+            asset = new ArrayList<>();
+        }
+        return asset;
+    }
+}
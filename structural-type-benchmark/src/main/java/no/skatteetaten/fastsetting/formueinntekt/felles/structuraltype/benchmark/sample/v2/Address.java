@@ -0,0 +1,44 @@
+package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.benchmark.sample.v2;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlType;
+
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlType(name = "Address", propOrder = {"street", "postalCode", "city"})
+public class Address {
+
+    @XmlElement(required = true)
+    protected String street;
+
+    @XmlElement(required = true)
+    protected String postalCode;
+
+    @XmlElement(required = true)
+    protected String city;
+
+    public String getStreet() {
+        return street;
+    }
+
+    public void setStreet(String street) {
+        this.street = street;
+    }
+
+    public String getPostalCode() {
+        return postalCode;
+    }
+
+    public void setPostalCode(String postalCode) {
+        this.postalCode = postalCode;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public void setCity(String city) {
+        this.city = city;
+    }
+}
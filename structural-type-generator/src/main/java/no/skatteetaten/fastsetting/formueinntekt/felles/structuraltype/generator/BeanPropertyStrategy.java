@@ -30,6 +30,9 @@ public class BeanPropertyStrategy implements PropertyStrategy {
         case ASSUME:
             prefix = "assume";
             break;
+        case NULLABLE:
+            prefix = "peek";
+            break;
         case SETTER:
             prefix = cardinality == Cardinality.LIST ? "add" : "set";
             break;
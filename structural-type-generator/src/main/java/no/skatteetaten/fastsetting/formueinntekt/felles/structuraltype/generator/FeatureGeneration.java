@@ -5,5 +5,9 @@ public enum FeatureGeneration {
     COPY,
     READ_DELEGATE,
     HASHCODE_EQUALS,
-    TO_STRING
+    TO_STRING,
+    MEMOIZED_BRANCHES,
+    MEMOIZED_CONVERSIONS,
+    CACHED_LIST_PROJECTIONS,
+    CACHED_LIST_CONVERSIONS
 }
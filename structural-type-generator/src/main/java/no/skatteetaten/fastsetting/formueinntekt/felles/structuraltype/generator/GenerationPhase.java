@@ -0,0 +1,13 @@
+package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generator;
+
+public enum GenerationPhase {
+    SINGULAR_DESCRIPTION,
+    NORMALIZATION,
+    COMPOUND_DESCRIPTION,
+    NAME_RESOLUTION,
+    PROPERTY_RESOLUTION,
+    STRUCTURE_EMISSION,
+    TEMPLATE_EMISSION,
+    ENUMERATION_EMISSION,
+    PROJECTION_EMISSION
+}
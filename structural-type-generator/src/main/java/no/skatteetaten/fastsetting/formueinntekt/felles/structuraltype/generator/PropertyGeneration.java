@@ -3,6 +3,7 @@ package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generato
 public enum PropertyGeneration {
     GETTER,
     ASSUME,
+    NULLABLE,
     SETTER,
     TRIAL,
     FLUENT,
@@ -22,6 +22,7 @@ import java.util.stream.Stream;
 
 import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.TypeName;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api.Conversions;
 
 public class SimpleTypeResolver implements TypeResolver.WithPairedMerge {
 
@@ -156,7 +157,7 @@ public class SimpleTypeResolver implements TypeResolver.WithPairedMerge {
         ), new Definition(
             Number.class,
             code -> CodeBlock.builder().add("($T) $L", Number.class, code),
-            code -> CodeBlock.builder().add("new $T($L.toString())", BigInteger.class, code)
+            code -> CodeBlock.builder().add("$T.toBigInteger($L)", Conversions.class, code)
         ), new Definition(
             String.class,
             code -> CodeBlock.builder().add("$L.toString()", code),
@@ -166,7 +167,7 @@ public class SimpleTypeResolver implements TypeResolver.WithPairedMerge {
         BIG_DECIMAL(BigDecimal.class, new Definition(
             Number.class,
             code -> CodeBlock.builder().add("($T) $L", Number.class, code),
-            code -> CodeBlock.builder().add("new $T($L.toString())", BigDecimal.class, code)
+            code -> CodeBlock.builder().add("$T.toBigDecimal($L)", Conversions.class, code)
         ), new Definition(
             String.class,
             code -> CodeBlock.builder().add("$L.toString()", code),
@@ -180,7 +181,7 @@ public class SimpleTypeResolver implements TypeResolver.WithPairedMerge {
         ), new Definition(
             String.class,
             code -> CodeBlock.builder().add("$L.toString()", code),
-            code -> CodeBlock.builder().add("$T.parse($L)", LocalDate.class, code)
+            code -> CodeBlock.builder().add("$T.toLocalDate($L)", Conversions.class, code)
         )),
 
         LOCAL_TIME(LocalTime.class, new Definition(
@@ -13,9 +13,15 @@ import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generator
 import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generator.singular.SingularDescription;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiConsumer;
 import java.util.function.BiPredicate;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.ObjLongConsumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -53,6 +59,24 @@ public class StructuralType {
 
     private final boolean exceptionOnEmptySetter;
 
+    private final ObjLongConsumer<GenerationPhase> phaseListener;
+
+    private final Executor executor;
+
+    private final boolean primitiveTemplates;
+
+    private final boolean iterativeCopies;
+
+    private final boolean typeDispatch;
+
+    private final int methodSizeLimit;
+
+    private final boolean finalClasses;
+
+    private final String jacksonModule;
+
+    private final boolean mapProjections;
+
     public StructuralType() {
         namingStrategy = new CommonPrefixNamingStrategy();
         propertyStrategy = new BeanPropertyStrategy();
@@ -67,10 +91,24 @@ public class StructuralType {
         keyResolvers = Collections.emptyList();
         predefinitions = Collections.emptyMap();
         grouper = new IndexAlignedGrouper();
-        propertyGenerations = EnumSet.allOf(PropertyGeneration.class);
-        featureGenerations = EnumSet.allOf(FeatureGeneration.class);
+        propertyGenerations = EnumSet.complementOf(EnumSet.of(PropertyGeneration.NULLABLE));
+        featureGenerations = EnumSet.complementOf(EnumSet.of(
+            FeatureGeneration.MEMOIZED_BRANCHES,
+            FeatureGeneration.MEMOIZED_CONVERSIONS,
+            FeatureGeneration.CACHED_LIST_PROJECTIONS,
+            FeatureGeneration.CACHED_LIST_CONVERSIONS
+        ));
         implementationGenerations = EnumSet.allOf(ImplementationGeneration.class);
         exceptionOnEmptySetter = false;
+        phaseListener = (phase, duration) -> { };
+        executor = null;
+        primitiveTemplates = false;
+        iterativeCopies = false;
+        typeDispatch = false;
+        methodSizeLimit = 2_000;
+        finalClasses = false;
+        jacksonModule = null;
+        mapProjections = false;
     }
 
     private StructuralType(
@@ -90,7 +128,16 @@ public class StructuralType {
         Set<PropertyGeneration> propertyGenerations,
         Set<FeatureGeneration> featureGenerations,
         Set<ImplementationGeneration> implementationGenerations,
-        boolean exceptionOnEmptySetter
+        boolean exceptionOnEmptySetter,
+        ObjLongConsumer<GenerationPhase> phaseListener,
+        Executor executor,
+        boolean primitiveTemplates,
+        boolean iterativeCopies,
+        boolean typeDispatch,
+        int methodSizeLimit,
+        boolean finalClasses,
+        String jacksonModule,
+        boolean mapProjections
     ) {
         this.namingStrategy = namingStrategy;
         this.propertyStrategy = propertyStrategy;
@@ -109,6 +156,15 @@ public class StructuralType {
         this.featureGenerations = featureGenerations;
         this.implementationGenerations = implementationGenerations;
         this.exceptionOnEmptySetter = exceptionOnEmptySetter;
+        this.phaseListener = phaseListener;
+        this.executor = executor;
+        this.primitiveTemplates = primitiveTemplates;
+        this.iterativeCopies = iterativeCopies;
+        this.typeDispatch = typeDispatch;
+        this.methodSizeLimit = methodSizeLimit;
+        this.finalClasses = finalClasses;
+        this.jacksonModule = jacksonModule;
+        this.mapProjections = mapProjections;
     }
 
     public StructuralType withNamingStrategy(NamingStrategy namingStrategy) {
@@ -129,7 +185,16 @@ public class StructuralType {
             propertyGenerations,
             featureGenerations,
             implementationGenerations,
-            exceptionOnEmptySetter
+            exceptionOnEmptySetter,
+            phaseListener,
+            executor,
+            primitiveTemplates,
+            iterativeCopies,
+            typeDispatch,
+            methodSizeLimit,
+            finalClasses,
+            jacksonModule,
+            mapProjections
         );
     }
 
@@ -151,7 +216,16 @@ public class StructuralType {
             propertyGenerations,
             featureGenerations,
             implementationGenerations,
-            exceptionOnEmptySetter
+            exceptionOnEmptySetter,
+            phaseListener,
+            executor,
+            primitiveTemplates,
+            iterativeCopies,
+            typeDispatch,
+            methodSizeLimit,
+            finalClasses,
+            jacksonModule,
+            mapProjections
         );
     }
 
@@ -173,7 +247,16 @@ public class StructuralType {
                 propertyGenerations,
                 featureGenerations,
                 implementationGenerations,
-                exceptionOnEmptySetter
+                exceptionOnEmptySetter,
+                phaseListener,
+                executor,
+                primitiveTemplates,
+                iterativeCopies,
+                typeDispatch,
+                methodSizeLimit,
+                finalClasses,
+                jacksonModule,
+                mapProjections
         );
     }
 
@@ -195,7 +278,16 @@ public class StructuralType {
             propertyGenerations,
             featureGenerations,
             implementationGenerations,
-            exceptionOnEmptySetter
+            exceptionOnEmptySetter,
+            phaseListener,
+            executor,
+            primitiveTemplates,
+            iterativeCopies,
+            typeDispatch,
+            methodSizeLimit,
+            finalClasses,
+            jacksonModule,
+            mapProjections
         );
     }
 
@@ -217,7 +309,16 @@ public class StructuralType {
             propertyGenerations,
             featureGenerations,
             implementationGenerations,
-            exceptionOnEmptySetter
+            exceptionOnEmptySetter,
+            phaseListener,
+            executor,
+            primitiveTemplates,
+            iterativeCopies,
+            typeDispatch,
+            methodSizeLimit,
+            finalClasses,
+            jacksonModule,
+            mapProjections
         );
     }
 
@@ -239,7 +340,16 @@ public class StructuralType {
             propertyGenerations,
             featureGenerations,
             implementationGenerations,
-            exceptionOnEmptySetter
+            exceptionOnEmptySetter,
+            phaseListener,
+            executor,
+            primitiveTemplates,
+            iterativeCopies,
+            typeDispatch,
+            methodSizeLimit,
+            finalClasses,
+            jacksonModule,
+            mapProjections
         );
     }
 
@@ -261,7 +371,16 @@ public class StructuralType {
             propertyGenerations,
             featureGenerations,
             implementationGenerations,
-            exceptionOnEmptySetter
+            exceptionOnEmptySetter,
+            phaseListener,
+            executor,
+            primitiveTemplates,
+            iterativeCopies,
+            typeDispatch,
+            methodSizeLimit,
+            finalClasses,
+            jacksonModule,
+            mapProjections
         );
     }
 
@@ -283,7 +402,16 @@ public class StructuralType {
             propertyGenerations,
             featureGenerations,
             implementationGenerations,
-            exceptionOnEmptySetter
+            exceptionOnEmptySetter,
+            phaseListener,
+            executor,
+            primitiveTemplates,
+            iterativeCopies,
+            typeDispatch,
+            methodSizeLimit,
+            finalClasses,
+            jacksonModule,
+            mapProjections
         );
     }
 
@@ -305,7 +433,16 @@ public class StructuralType {
             propertyGenerations,
             featureGenerations,
             implementationGenerations,
-            exceptionOnEmptySetter
+            exceptionOnEmptySetter,
+            phaseListener,
+            executor,
+            primitiveTemplates,
+            iterativeCopies,
+            typeDispatch,
+            methodSizeLimit,
+            finalClasses,
+            jacksonModule,
+            mapProjections
         );
     }
 
@@ -327,7 +464,16 @@ public class StructuralType {
             propertyGenerations,
             featureGenerations,
             implementationGenerations,
-            exceptionOnEmptySetter
+            exceptionOnEmptySetter,
+            phaseListener,
+            executor,
+            primitiveTemplates,
+            iterativeCopies,
+            typeDispatch,
+            methodSizeLimit,
+            finalClasses,
+            jacksonModule,
+            mapProjections
         );
     }
 
@@ -350,7 +496,16 @@ public class StructuralType {
             propertyGenerations,
             featureGenerations,
             implementationGenerations,
-            exceptionOnEmptySetter
+            exceptionOnEmptySetter,
+            phaseListener,
+            executor,
+            primitiveTemplates,
+            iterativeCopies,
+            typeDispatch,
+            methodSizeLimit,
+            finalClasses,
+            jacksonModule,
+            mapProjections
         );
     }
 
@@ -388,7 +543,16 @@ public class StructuralType {
             propertyGenerations,
             featureGenerations,
             implementationGenerations,
-            exceptionOnEmptySetter
+            exceptionOnEmptySetter,
+            phaseListener,
+            executor,
+            primitiveTemplates,
+            iterativeCopies,
+            typeDispatch,
+            methodSizeLimit,
+            finalClasses,
+            jacksonModule,
+            mapProjections
         );
     }
 
@@ -410,7 +574,16 @@ public class StructuralType {
                 propertyGenerations,
                 featureGenerations,
                 implementationGenerations,
-                exceptionOnEmptySetter
+                exceptionOnEmptySetter,
+                phaseListener,
+                executor,
+                primitiveTemplates,
+                iterativeCopies,
+                typeDispatch,
+                methodSizeLimit,
+                finalClasses,
+                jacksonModule,
+                mapProjections
         );
     }
 
@@ -434,7 +607,16 @@ public class StructuralType {
             ),
             featureGenerations,
             implementationGenerations,
-            exceptionOnEmptySetter
+            exceptionOnEmptySetter,
+            phaseListener,
+            executor,
+            primitiveTemplates,
+            iterativeCopies,
+            typeDispatch,
+            methodSizeLimit,
+            finalClasses,
+            jacksonModule,
+            mapProjections
         );
     }
 
@@ -458,7 +640,16 @@ public class StructuralType {
                 generations[0], Arrays.stream(generations).skip(1).toArray(FeatureGeneration[]::new)
             ),
             implementationGenerations,
-            exceptionOnEmptySetter
+            exceptionOnEmptySetter,
+            phaseListener,
+            executor,
+            primitiveTemplates,
+            iterativeCopies,
+            typeDispatch,
+            methodSizeLimit,
+            finalClasses,
+            jacksonModule,
+            mapProjections
         );
     }
 
@@ -482,7 +673,16 @@ public class StructuralType {
             generations.length == 0 ? EnumSet.noneOf(ImplementationGeneration.class) : EnumSet.of(
                 generations[0], Arrays.stream(generations).skip(1).toArray(ImplementationGeneration[]::new)
             ),
-            exceptionOnEmptySetter
+            exceptionOnEmptySetter,
+            phaseListener,
+            executor,
+            primitiveTemplates,
+            iterativeCopies,
+            typeDispatch,
+            methodSizeLimit,
+            finalClasses,
+            jacksonModule,
+            mapProjections
         );
     }
 
@@ -504,7 +704,295 @@ public class StructuralType {
             propertyGenerations,
             featureGenerations,
             implementationGenerations,
-            exceptionOnEmptySetter
+            exceptionOnEmptySetter,
+            phaseListener,
+            executor,
+            primitiveTemplates,
+            iterativeCopies,
+            typeDispatch,
+            methodSizeLimit,
+            finalClasses,
+            jacksonModule,
+            mapProjections
+        );
+    }
+
+    public StructuralType withPhaseListener(ObjLongConsumer<GenerationPhase> phaseListener) {
+        return new StructuralType(
+            namingStrategy,
+            propertyStrategy,
+            structuralResolver,
+            typeResolver,
+            accessResolver,
+            interfaceResolver,
+            nodeResolver,
+            condition,
+            normalizeIntersections,
+            normalizeEnumerations,
+            keyResolvers,
+            predefinitions,
+            grouper,
+            propertyGenerations,
+            featureGenerations,
+            implementationGenerations,
+            exceptionOnEmptySetter,
+            phaseListener,
+            executor,
+            primitiveTemplates,
+            iterativeCopies,
+            typeDispatch,
+            methodSizeLimit,
+            finalClasses,
+            jacksonModule,
+            mapProjections
+        );
+    }
+
+    public StructuralType withParallelism(Executor executor) {
+        return new StructuralType(
+            namingStrategy,
+            propertyStrategy,
+            structuralResolver,
+            typeResolver,
+            accessResolver,
+            interfaceResolver,
+            nodeResolver,
+            condition,
+            normalizeIntersections,
+            normalizeEnumerations,
+            keyResolvers,
+            predefinitions,
+            grouper,
+            propertyGenerations,
+            featureGenerations,
+            implementationGenerations,
+            exceptionOnEmptySetter,
+            phaseListener,
+            executor,
+            primitiveTemplates,
+            iterativeCopies,
+            typeDispatch,
+            methodSizeLimit,
+            finalClasses,
+            jacksonModule,
+            mapProjections
+        );
+    }
+
+    public StructuralType withPrimitiveTemplates(boolean primitiveTemplates) {
+        return new StructuralType(
+            namingStrategy,
+            propertyStrategy,
+            structuralResolver,
+            typeResolver,
+            accessResolver,
+            interfaceResolver,
+            nodeResolver,
+            condition,
+            normalizeIntersections,
+            normalizeEnumerations,
+            keyResolvers,
+            predefinitions,
+            grouper,
+            propertyGenerations,
+            featureGenerations,
+            implementationGenerations,
+            exceptionOnEmptySetter,
+            phaseListener,
+            executor,
+            primitiveTemplates,
+            iterativeCopies,
+            typeDispatch,
+            methodSizeLimit,
+            finalClasses,
+            jacksonModule,
+            mapProjections
+        );
+    }
+
+    public StructuralType withIterativeCopies(boolean iterativeCopies) {
+        return new StructuralType(
+            namingStrategy,
+            propertyStrategy,
+            structuralResolver,
+            typeResolver,
+            accessResolver,
+            interfaceResolver,
+            nodeResolver,
+            condition,
+            normalizeIntersections,
+            normalizeEnumerations,
+            keyResolvers,
+            predefinitions,
+            grouper,
+            propertyGenerations,
+            featureGenerations,
+            implementationGenerations,
+            exceptionOnEmptySetter,
+            phaseListener,
+            executor,
+            primitiveTemplates,
+            iterativeCopies,
+            typeDispatch,
+            methodSizeLimit,
+            finalClasses,
+            jacksonModule,
+            mapProjections
+        );
+    }
+
+    public StructuralType withTypeDispatch(boolean typeDispatch) {
+        return new StructuralType(
+            namingStrategy,
+            propertyStrategy,
+            structuralResolver,
+            typeResolver,
+            accessResolver,
+            interfaceResolver,
+            nodeResolver,
+            condition,
+            normalizeIntersections,
+            normalizeEnumerations,
+            keyResolvers,
+            predefinitions,
+            grouper,
+            propertyGenerations,
+            featureGenerations,
+            implementationGenerations,
+            exceptionOnEmptySetter,
+            phaseListener,
+            executor,
+            primitiveTemplates,
+            iterativeCopies,
+            typeDispatch,
+            methodSizeLimit,
+            finalClasses,
+            jacksonModule,
+            mapProjections
+        );
+    }
+
+    public StructuralType withMethodSizeLimit(int methodSizeLimit) {
+        return new StructuralType(
+            namingStrategy,
+            propertyStrategy,
+            structuralResolver,
+            typeResolver,
+            accessResolver,
+            interfaceResolver,
+            nodeResolver,
+            condition,
+            normalizeIntersections,
+            normalizeEnumerations,
+            keyResolvers,
+            predefinitions,
+            grouper,
+            propertyGenerations,
+            featureGenerations,
+            implementationGenerations,
+            exceptionOnEmptySetter,
+            phaseListener,
+            executor,
+            primitiveTemplates,
+            iterativeCopies,
+            typeDispatch,
+            methodSizeLimit,
+            finalClasses,
+            jacksonModule,
+            mapProjections
+        );
+    }
+
+    public StructuralType withFinalClasses(boolean finalClasses) {
+        return new StructuralType(
+            namingStrategy,
+            propertyStrategy,
+            structuralResolver,
+            typeResolver,
+            accessResolver,
+            interfaceResolver,
+            nodeResolver,
+            condition,
+            normalizeIntersections,
+            normalizeEnumerations,
+            keyResolvers,
+            predefinitions,
+            grouper,
+            propertyGenerations,
+            featureGenerations,
+            implementationGenerations,
+            exceptionOnEmptySetter,
+            phaseListener,
+            executor,
+            primitiveTemplates,
+            iterativeCopies,
+            typeDispatch,
+            methodSizeLimit,
+            finalClasses,
+            jacksonModule,
+            mapProjections
+        );
+    }
+
+    public StructuralType withJacksonModule(String jacksonModule) {
+        return new StructuralType(
+            namingStrategy,
+            propertyStrategy,
+            structuralResolver,
+            typeResolver,
+            accessResolver,
+            interfaceResolver,
+            nodeResolver,
+            condition,
+            normalizeIntersections,
+            normalizeEnumerations,
+            keyResolvers,
+            predefinitions,
+            grouper,
+            propertyGenerations,
+            featureGenerations,
+            implementationGenerations,
+            exceptionOnEmptySetter,
+            phaseListener,
+            executor,
+            primitiveTemplates,
+            iterativeCopies,
+            typeDispatch,
+            methodSizeLimit,
+            finalClasses,
+            jacksonModule,
+            mapProjections
+        );
+    }
+
+    public StructuralType withMapProjections(boolean mapProjections) {
+        return new StructuralType(
+            namingStrategy,
+            propertyStrategy,
+            structuralResolver,
+            typeResolver,
+            accessResolver,
+            interfaceResolver,
+            nodeResolver,
+            condition,
+            normalizeIntersections,
+            normalizeEnumerations,
+            keyResolvers,
+            predefinitions,
+            grouper,
+            propertyGenerations,
+            featureGenerations,
+            implementationGenerations,
+            exceptionOnEmptySetter,
+            phaseListener,
+            executor,
+            primitiveTemplates,
+            iterativeCopies,
+            typeDispatch,
+            methodSizeLimit,
+            finalClasses,
+            jacksonModule,
+            mapProjections
         );
     }
 
@@ -513,6 +1001,11 @@ public class StructuralType {
     }
 
     public Map<ClassName, JavaFile> make(List<Class<?>> types) {
+        long started = System.nanoTime();
+        List<SingularDescription> singulars = SingularDescription.of(structuralResolver, nodeResolver, condition, types);
+        phaseListener.accept(GenerationPhase.SINGULAR_DESCRIPTION, System.nanoTime() - started);
+        long[] normalization = new long[1];
+        started = System.nanoTime();
         CompoundDescription root = CompoundDescription.of(
             typeResolver::merge,
             type -> {
@@ -528,48 +1021,143 @@ public class StructuralType {
                 ));
             },
             grouper,
-            singulars -> {
+            values -> {
+                long initialized = System.nanoTime();
                 Function<List<SingularDescription>, List<SingularDescription>> normalizer = new DefaultNormalizer();
                 if (normalizeIntersections) {
-                    normalizer = normalizer.andThen(IntersectingNormalizer.of(singulars));
+                    normalizer = normalizer.andThen(IntersectingNormalizer.of(values));
                 }
                 if (normalizeEnumerations) {
-                    normalizer = normalizer.andThen(EnumeratingNormalizer.of(singulars));
+                    normalizer = normalizer.andThen(EnumeratingNormalizer.of(values));
                 }
                 for (Function<Class<?>, ?> resolver : keyResolvers) {
-                    normalizer = normalizer.andThen(KeyNormalizer.of(singulars, resolver));
+                    normalizer = normalizer.andThen(KeyNormalizer.of(values, resolver));
                 }
+                normalization[0] += System.nanoTime() - initialized;
                 return normalizer;
             },
-            SingularDescription.of(structuralResolver, nodeResolver, condition, types)
+            singulars
         );
+        phaseListener.accept(GenerationPhase.NORMALIZATION, normalization[0]);
+        phaseListener.accept(GenerationPhase.COMPOUND_DESCRIPTION, System.nanoTime() - started - normalization[0]);
         PrecomputedResolver resolver = new PrecomputedResolver();
+        ClassName module = jacksonModule == null ? null : ClassName.bestGuess(jacksonModule);
+        if (module != null) {
+            resolver.reserved.add(module);
+        }
+        started = System.nanoTime();
         root.traverse(
             (compound, properties) -> resolver.proccess(compound, false),
             (compound, properties) -> resolver.proccess(compound, true)
         );
+        phaseListener.accept(GenerationPhase.NAME_RESOLUTION, System.nanoTime() - started);
+        started = System.nanoTime();
         resolver.complete();
-        Map<ClassName, JavaFile> files = new LinkedHashMap<>();
+        phaseListener.accept(GenerationPhase.PROPERTY_RESOLUTION, System.nanoTime() - started);
+        Map<GenerationPhase, LongAdder> durations = new EnumMap<>(GenerationPhase.class);
+        durations.put(GenerationPhase.STRUCTURE_EMISSION, new LongAdder());
+        List<Emission> emissions = new ArrayList<>();
+        Set<CompoundDescription> serializables = new LinkedHashSet<>();
+        if (module != null) {
+            root.traverse((description, constants) -> {
+            }, resolver.guard((description, properties) -> {
+                if (!properties.containsKey(CompoundDescription.EXPANSION)) {
+                    serializables.add(description);
+                }
+            }));
+            serializables.removeIf(description -> !resolver.isInherited(description, serializables));
+        }
+        JacksonEmitter jacksonEmitter = new JacksonEmitter(
+            propertyGenerations, implementationGenerations, resolver, resolver, methodSizeLimit
+        );
+        Set<CompoundDescription> mappables = new HashSet<>();
+        if (mapProjections) {
+            root.traverse((description, constants) -> {
+            }, resolver.guard((description, properties) -> {
+                if (properties.values().stream().noneMatch(property -> property.getDescription().apply(
+                    type -> false,
+                    constants -> false,
+                    nested -> nested.containsKey(CompoundDescription.EXPANSION)
+                )) && !properties.containsKey(CompoundDescription.EXPANSION)) {
+                    mappables.add(description);
+                }
+            }));
+            mappables.removeIf(description -> !resolver.isInherited(description, mappables));
+        }
+        Set<ClassName> mappableNames = mappables.stream().map(resolver::structure).collect(Collectors.toSet());
+        MapProjectionEmitter mapProjectionEmitter = new MapProjectionEmitter(
+            propertyGenerations, featureGenerations, implementationGenerations, resolver, resolver, typeResolver,
+            description -> mappableNames.contains(resolver.structure(description))
+        );
         root.traverse((description, constants) -> {
-        }, resolver.guard(new StructureEmitter(
-            propertyGenerations, featureGenerations, implementationGenerations,
-            resolver, resolver, resolver.interfaces, files::put
-        )));
+        }, resolver.guard((description, properties) -> emissions.add(new Emission(
+            GenerationPhase.STRUCTURE_EMISSION,
+            consumer -> new StructureEmitter(
+                propertyGenerations, featureGenerations, implementationGenerations,
+                resolver, resolver, resolver::isRecursive, resolver.interfaces, iterativeCopies, typeDispatch,
+                serializables::contains, jacksonEmitter, mapProjectionEmitter, consumer
+            ).accept(description, properties)
+        ))));
+        if (module != null) {
+            emissions.add(new Emission(
+                GenerationPhase.STRUCTURE_EMISSION,
+                consumer -> jacksonEmitter.module(module, new ArrayList<>(serializables), consumer)
+            ));
+        }
         if (implementationGenerations.contains(ImplementationGeneration.TEMPLATE)) {
+            durations.put(GenerationPhase.TEMPLATE_EMISSION, new LongAdder());
             root.traverse((description, constants) -> {
-            }, resolver.guard(new TemplateEmitter(
-                propertyGenerations, featureGenerations,
-                resolver, resolver, files::put
-            )));
+            }, resolver.guard((description, properties) -> emissions.add(new Emission(
+                GenerationPhase.TEMPLATE_EMISSION,
+                consumer -> new TemplateEmitter(
+                    propertyGenerations, featureGenerations,
+                    resolver, resolver, resolver::isRecursive, primitiveTemplates, iterativeCopies, methodSizeLimit, finalClasses, consumer
+                ).accept(description, properties)
+            ))));
         }
         if (implementationGenerations.contains(ImplementationGeneration.PROJECTION)) {
-            root.traverse(resolver.guard(new EnumerationEmitter(
-                resolver, files::put
-            ))::test, resolver.guard(new ProjectionEmitter(
-                propertyGenerations, featureGenerations,
-                resolver, resolver, typeResolver, accessResolver, exceptionOnEmptySetter, files::put
-            )));
+            durations.put(GenerationPhase.ENUMERATION_EMISSION, new LongAdder());
+            durations.put(GenerationPhase.PROJECTION_EMISSION, new LongAdder());
+            root.traverse(resolver.guard((CompoundDescription description, Map<String, Map<Class<?>, Enum<?>>> constants) -> emissions.add(new Emission(
+                GenerationPhase.ENUMERATION_EMISSION,
+                consumer -> new EnumerationEmitter(
+                    resolver, typeDispatch, consumer
+                ).accept(description, constants)
+            )))::test, resolver.guard((description, properties) -> emissions.add(new Emission(
+                GenerationPhase.PROJECTION_EMISSION,
+                consumer -> new ProjectionEmitter(
+                    propertyGenerations, featureGenerations,
+                    resolver, resolver, resolver::isRecursive, typeResolver, accessResolver,
+                    exceptionOnEmptySetter, iterativeCopies, typeDispatch,
+                    methodSizeLimit, finalClasses, consumer
+                ).accept(description, properties)
+            ))));
+        }
+        Map<ClassName, JavaFile> files = new LinkedHashMap<>();
+        if (executor == null) {
+            emissions.forEach(emission -> emission.emit(files::put, durations.get(emission.phase)));
+        } else {
+            List<CompletableFuture<Map<ClassName, JavaFile>>> futures = emissions.stream().map(emission -> CompletableFuture.supplyAsync(() -> {
+                Map<ClassName, JavaFile> emitted = new LinkedHashMap<>();
+                emission.emit(emitted::put, durations.get(emission.phase));
+                return emitted;
+            }, executor)).collect(Collectors.toList());
+            for (CompletableFuture<Map<ClassName, JavaFile>> future : futures) {
+                try {
+                    files.putAll(future.join());
+                } catch (CompletionException e) {
+                    futures.forEach(candidate -> candidate.cancel(false));
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    } else if (e.getCause() instanceof Error) {
+                        throw (Error) e.getCause();
+                    } else {
+                        throw e;
+                    }
+                }
+            }
         }
+        durations.forEach((phase, duration) -> phaseListener.accept(phase, duration.sum()));
         return files;
     }
 
@@ -585,6 +1173,8 @@ public class StructuralType {
 
         private final Map<ClassName, List<Class<?>>> interfaces = new HashMap<>();
 
+        private final Set<CompoundDescription> recursions = new HashSet<>();
+
         @Override
         public ClassName structure(CompoundDescription compound) {
             return structures.get(compound);
@@ -657,6 +1247,15 @@ public class StructuralType {
             Map<CompoundDescription, ClassName> processed = structures.entrySet().stream().filter(
                 entry -> !predefinitions.containsKey(entry.getValue())
             ).collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+            Map<CompoundDescription, Boolean> resolved = new HashMap<>();
+            processed.keySet().stream()
+                .filter(description -> description.getSort() == CompoundDescription.Sort.BRANCH)
+                .forEach(description -> isRecursive(toBase(description), resolved, new HashSet<>()));
+            resolved.forEach((description, recursive) -> {
+                if (recursive) {
+                    recursions.addAll(toHierarchy(description));
+                }
+            });
             processed.forEach((description, name) -> interfaces.put(name, interfaceResolver.resolve(
                 name,
                 description.getSingulars().stream()
@@ -678,6 +1277,9 @@ public class StructuralType {
                                 return propertyGenerations.contains(generation);
                             case ASSUME:
                                 return entry.getValue().getCardinality() == Cardinality.OPTIONAL;
+                            case NULLABLE:
+                                return entry.getValue().getCardinality() == Cardinality.OPTIONAL
+                                    && propertyGenerations.contains(generation);
                             case SETTER:
                                 if (entry.getKey().isEmpty()) {
                                     return false;
@@ -728,6 +1330,63 @@ public class StructuralType {
             ));
         }
 
+        private boolean isRecursive(CompoundDescription compound) {
+            return recursions.contains(compound);
+        }
+
+        private boolean isRecursive(
+            CompoundDescription base,
+            Map<CompoundDescription, Boolean> resolved,
+            Set<CompoundDescription> visiting
+        ) {
+            Boolean recursive = resolved.get(base);
+            if (recursive != null) {
+                return recursive;
+            } else if (!visiting.add(base)) {
+                return true;
+            }
+            List<CompoundDescription> hierarchy = toHierarchy(base);
+            recursive = hierarchy.stream().anyMatch(description -> predefinitions.containsKey(structures.get(description)))
+                || hierarchy.stream().anyMatch(description -> description.apply(
+                    type -> false,
+                    constants -> false,
+                    properties -> properties.values().stream()
+                        .map(CompoundDescription.Property::getDescription)
+                        .filter(property -> property.getSort() == CompoundDescription.Sort.BRANCH)
+                        .anyMatch(property -> isRecursive(toBase(property), resolved, visiting))
+                ));
+            visiting.remove(base);
+            resolved.put(base, recursive);
+            return recursive;
+        }
+
+        private CompoundDescription toBase(CompoundDescription description) {
+            while (description.getSuperDescription().isPresent()) {
+                description = description.getSuperDescription().get();
+            }
+            return description;
+        }
+
+        private List<CompoundDescription> toHierarchy(CompoundDescription description) {
+            List<CompoundDescription> hierarchy = new ArrayList<>(List.of(description));
+            for (int index = 0; index < hierarchy.size(); index++) {
+                hierarchy.addAll(hierarchy.get(index).getSubDescriptions());
+            }
+            return hierarchy;
+        }
+
+        private boolean isInherited(CompoundDescription description, Set<CompoundDescription> descriptions) {
+            CompoundDescription current = description;
+            while (descriptions.contains(current)) {
+                Optional<CompoundDescription> superDescription = current.getSuperDescription();
+                if (superDescription.isEmpty()) {
+                    return true;
+                }
+                current = superDescription.get();
+            }
+            return false;
+        }
+
         private <T> BiPredicate<CompoundDescription, T> guard(BiConsumer<CompoundDescription, T> delegate) {
             return (description, properties) -> {
                 if (predefinitions.containsKey(structures.get(description))) {
@@ -740,6 +1399,27 @@ public class StructuralType {
         }
     }
 
+    private static class Emission {
+
+        private final GenerationPhase phase;
+
+        private final Consumer<BiConsumer<ClassName, JavaFile>> emitter;
+
+        private Emission(GenerationPhase phase, Consumer<BiConsumer<ClassName, JavaFile>> emitter) {
+            this.phase = phase;
+            this.emitter = emitter;
+        }
+
+        private void emit(BiConsumer<ClassName, JavaFile> consumer, LongAdder duration) {
+            long started = System.nanoTime();
+            try {
+                emitter.accept(consumer);
+            } finally {
+                duration.add(System.nanoTime() - started);
+            }
+        }
+    }
+
     private static class Predefinition {
 
         private final Class<?> template;
@@ -10,6 +10,7 @@ import javax.lang.model.element.Modifier;
 import com.squareup.javapoet.*;
 
 import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api.EnumeratedAs;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api.TypeDispatcher;
 import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generator.compound.CompoundDescription;
 import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generator.singular.SingularDescription;
 import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api.EnumerationOf;
@@ -17,13 +18,16 @@ import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api.Enume
 public class EnumerationEmitter implements BiConsumer<CompoundDescription, Map<String, Map<Class<?>, Enum<?>>>> {
 
     private final NameResolver nameResolver;
+    private final boolean typeDispatch;
     private final BiConsumer<ClassName, JavaFile> consumer;
 
     public EnumerationEmitter(
         NameResolver nameResolver,
+        boolean typeDispatch,
         BiConsumer<ClassName, JavaFile> consumer
     ) {
         this.nameResolver = nameResolver;
+        this.typeDispatch = typeDispatch;
         this.consumer = consumer;
     }
 
@@ -60,9 +64,19 @@ public class EnumerationEmitter implements BiConsumer<CompoundDescription, Map<S
                     .addStatement("return $T.$N", structure, name)
                     .unindent();
         });
+        boolean dispatch = typeDispatch && compound.getSingulars().size() > 1;
+        TypeName table = ArrayTypeName.of(ParameterizedTypeName.get(
+            ClassName.get(Enum.class),
+            WildcardTypeName.subtypeOf(Object.class)
+        ));
         CodeBlock.Builder unwrap = CodeBlock.builder()
             .beginControlFlow("if (value == null)")
             .addStatement("return null");
+        CodeBlock.Builder dispatcher = CodeBlock.builder().add(
+            "$T.<$T>builder(true, null)",
+            TypeDispatcher.class,
+            table
+        ).indent();
         Map<Enum<?>, String> names = constants.entrySet().stream()
             .flatMap(entry -> entry.getValue().values().stream().map(enumeration -> Map.entry(enumeration, normalized.get(entry.getKey()))))
             .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
@@ -91,6 +105,16 @@ public class EnumerationEmitter implements BiConsumer<CompoundDescription, Map<S
                     .endControlFlow()
                     .build())
                 .build());
+            if (dispatch) {
+                dispatcher.add("\n.with($T.class, new $T { ", singular.getType(), table);
+                dispatcher.add(constants.values().stream()
+                    .map(values -> values.containsKey(singular.getType())
+                        ? CodeBlock.of("$T.$N", singular.getType(), values.get(singular.getType()).name())
+                        : CodeBlock.of("null"))
+                    .collect(CodeBlock.joining(", ")));
+                dispatcher.add(" })");
+                return;
+            }
             unwrap.nextControlFlow("else if (type == $T.class)", singular.getType()).beginControlFlow("switch (value)");
             constants.forEach((constant, values) -> {
                 unwrap.add("case $N:\n", normalized.get(constant)).indent();
@@ -107,6 +131,17 @@ public class EnumerationEmitter implements BiConsumer<CompoundDescription, Map<S
                 .unindent()
                 .endControlFlow();
         });
+        if (dispatch) {
+            builder.addField(FieldSpec.builder(
+                ParameterizedTypeName.get(ClassName.get(TypeDispatcher.class), table),
+                "UNWRAP",
+                Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL
+            ).initializer(dispatcher.add("\n.build()").unindent().build()).build());
+            unwrap.endControlFlow()
+                .addStatement("$T values = UNWRAP.get(type)", table)
+                .beginControlFlow("if (values != null)")
+                .addStatement("return (E) values[value.ordinal()]");
+        }
         builder.addMethod(MethodSpec.methodBuilder("unwrap")
             .addAnnotation(AnnotationSpec.builder(SuppressWarnings.class).addMember(
                 "value", CodeBlock.builder().add("$S", "unchecked").build()
@@ -0,0 +1,342 @@
+package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generator.emitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import javax.lang.model.element.Modifier;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generator.Cardinality;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generator.ImplementationGeneration;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generator.PropertyGeneration;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generator.compound.CompoundDescription;
+
+public class JacksonEmitter {
+
+    static final String SERIALIZER = "Serializer", DESERIALIZER = "Deserializer";
+
+    private static final ClassName JSON_GENERATOR = ClassName.get("com.fasterxml.jackson.core", "JsonGenerator"),
+        JSON_PARSER = ClassName.get("com.fasterxml.jackson.core", "JsonParser"),
+        JSON_TOKEN = ClassName.get("com.fasterxml.jackson.core", "JsonToken"),
+        SERIALIZER_PROVIDER = ClassName.get("com.fasterxml.jackson.databind", "SerializerProvider"),
+        TYPE_SERIALIZER = ClassName.get("com.fasterxml.jackson.databind.jsontype", "TypeSerializer"),
+        WRITABLE_TYPE_ID = ClassName.get("com.fasterxml.jackson.core.type", "WritableTypeId"),
+        DESERIALIZATION_CONTEXT = ClassName.get("com.fasterxml.jackson.databind", "DeserializationContext"),
+        STD_SERIALIZER = ClassName.get("com.fasterxml.jackson.databind.ser.std", "StdSerializer"),
+        STD_DESERIALIZER = ClassName.get("com.fasterxml.jackson.databind.deser.std", "StdDeserializer"),
+        SIMPLE_MODULE = ClassName.get("com.fasterxml.jackson.databind.module", "SimpleModule");
+
+    private final Set<PropertyGeneration> propertyGenerations;
+    private final Set<ImplementationGeneration> implementationGenerations;
+    private final NameResolver nameResolver;
+    private final PropertyResolver propertyResolver;
+    private final int methodSizeLimit;
+
+    public JacksonEmitter(
+        Set<PropertyGeneration> propertyGenerations,
+        Set<ImplementationGeneration> implementationGenerations,
+        NameResolver nameResolver,
+        PropertyResolver propertyResolver,
+        int methodSizeLimit
+    ) {
+        this.propertyGenerations = propertyGenerations;
+        this.implementationGenerations = implementationGenerations;
+        this.nameResolver = nameResolver;
+        this.propertyResolver = propertyResolver;
+        this.methodSizeLimit = methodSizeLimit;
+    }
+
+    public void module(ClassName module, List<CompoundDescription> compounds, BiConsumer<ClassName, JavaFile> consumer) {
+        List<CodeBlock> blocks = new ArrayList<>();
+        compounds.forEach(compound -> {
+            ClassName structure = nameResolver.structure(compound);
+            blocks.add(CodeBlock.builder()
+                .addStatement("module.addSerializer($T.class, new $T())", structure, structure.nestedClass(SERIALIZER))
+                .addStatement("module.addDeserializer($T.class, new $T())", structure, structure.nestedClass(DESERIALIZER))
+                .build());
+        });
+        List<MethodSpec> helpers = new ArrayList<>();
+        CodeBlock registrations = MethodSplitter.split(
+            helpers::add,
+            "register",
+            TypeName.VOID,
+            List.of(ParameterSpec.builder(module, "module").build()),
+            blocks,
+            CodeBlock.builder().build(),
+            invocation -> CodeBlock.builder().addStatement("$L", invocation).build(),
+            methodSizeLimit
+        );
+        consumer.accept(module, JavaFile.builder(module.packageName(), TypeSpec.classBuilder(module)
+            .addModifiers(Modifier.PUBLIC)
+            .superclass(SIMPLE_MODULE)
+            .addMethod(MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PUBLIC)
+                .addStatement("super($T.class.getSimpleName())", module)
+                .addStatement("register(this)")
+                .build())
+            .addMethod(MethodSpec.methodBuilder("register")
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                .addParameter(module, "module")
+                .addCode(registrations)
+                .build())
+            .addMethods(helpers)
+            .build()).skipJavaLangImports(true).build());
+    }
+
+    TypeSpec serializer(CompoundDescription compound, Map<String, CompoundDescription.Property> properties) {
+        if (!propertyGenerations.contains(PropertyGeneration.GETTER)) {
+            throw new IllegalStateException("Jackson serializers require getter properties to be enabled");
+        }
+        ClassName structure = nameResolver.structure(compound);
+        List<CodeBlock> blocks = new ArrayList<>();
+        properties.forEach((name, property) -> {
+            TypeName type = toType(property);
+            String getter = propertyResolver.accessor(structure, name, PropertyGeneration.GETTER);
+            CodeBlock.Builder block = CodeBlock.builder();
+            switch (property.getCardinality()) {
+            case SINGLE:
+                if (type.equals(TypeName.BOOLEAN)) {
+                    block.addStatement("generator.writeBooleanField($S, value.$N())", name, getter);
+                } else if (type.equals(TypeName.CHAR)) {
+                    block.addStatement("generator.writeStringField($S, $T.valueOf(value.$N()))", name, String.class, getter);
+                } else if (type.isPrimitive()) {
+                    block.addStatement("generator.writeNumberField($S, value.$N())", name, getter);
+                } else if (type.equals(TypeName.get(String.class))) {
+                    block.addStatement("generator.writeStringField($S, value.$N())", name, getter);
+                } else {
+                    block.addStatement("provider.defaultSerializeField($S, value.$N(), generator)", name, getter);
+                }
+                break;
+            case OPTIONAL:
+                if (type.box().equals(TypeName.get(String.class))) {
+                    block.addStatement("generator.writeStringField($S, value.$N().orElse(null))", name, getter);
+                } else {
+                    block.addStatement("provider.defaultSerializeField($S, value.$N().orElse(null), generator)", name, getter);
+                }
+                break;
+            case LIST:
+                block.addStatement("generator.writeArrayFieldStart($S)", name)
+                    .beginControlFlow("for ($T element : value.$N())", type.box(), getter);
+                if (type.box().equals(TypeName.get(String.class))) {
+                    block.addStatement("generator.writeString(element)");
+                } else {
+                    block.addStatement("provider.defaultSerializeValue(element, generator)");
+                }
+                block.endControlFlow().addStatement("generator.writeEndArray()");
+                break;
+            default:
+                throw new IllegalStateException();
+            }
+            blocks.add(block.build());
+        });
+        List<ParameterSpec> parameters = Arrays.asList(
+            ParameterSpec.builder(structure, "value").build(),
+            ParameterSpec.builder(JSON_GENERATOR, "generator").build(),
+            ParameterSpec.builder(SERIALIZER_PROVIDER, "provider").build()
+        );
+        TypeSpec.Builder builder = TypeSpec.classBuilder(structure.nestedClass(SERIALIZER))
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .superclass(ParameterizedTypeName.get(STD_SERIALIZER, structure))
+            .addMethod(MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PUBLIC)
+                .addStatement("super($T.class)", structure)
+                .build())
+            .addMethod(MethodSpec.methodBuilder("serialize")
+                .addModifiers(Modifier.PUBLIC)
+                .addAnnotation(Override.class)
+                .addParameters(parameters)
+                .addException(IOException.class)
+                .addStatement("generator.writeStartObject(value)")
+                .addStatement("serializeProperties(value, generator, provider)")
+                .addStatement("generator.writeEndObject()")
+                .build())
+            .addMethod(MethodSpec.methodBuilder("serializeWithType")
+                .addModifiers(Modifier.PUBLIC)
+                .addAnnotation(Override.class)
+                .addParameters(parameters)
+                .addParameter(TYPE_SERIALIZER, "serializer")
+                .addException(IOException.class)
+                .addStatement(
+                    "$T id = serializer.writeTypePrefix(generator, serializer.typeId(value, $T.START_OBJECT))",
+                    WRITABLE_TYPE_ID, JSON_TOKEN
+                )
+                .addStatement("serializeProperties(value, generator, provider)")
+                .addStatement("serializer.writeTypeSuffix(generator, id)")
+                .build());
+        CodeBlock.Builder code = CodeBlock.builder();
+        compound.getSuperDescription().ifPresent(superCompound -> code.addStatement(
+            "$T.serializeProperties(value, generator, provider)",
+            nameResolver.structure(superCompound).nestedClass(SERIALIZER)
+        ));
+        code.add(MethodSplitter.split(
+            method -> builder.addMethod(method.toBuilder().addException(IOException.class).build()),
+            "serializeProperties",
+            TypeName.VOID,
+            parameters,
+            blocks,
+            CodeBlock.builder().build(),
+            invocation -> CodeBlock.builder().addStatement("$L", invocation).build(),
+            methodSizeLimit
+        ));
+        return builder.addMethod(MethodSpec.methodBuilder("serializeProperties")
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addParameters(parameters)
+            .addException(IOException.class)
+            .addCode(code.build())
+            .build()).build();
+    }
+
+    TypeSpec deserializer(CompoundDescription compound, Map<String, CompoundDescription.Property> properties) {
+        if (!implementationGenerations.contains(ImplementationGeneration.TEMPLATE)
+            || !propertyGenerations.containsAll(Arrays.asList(PropertyGeneration.GETTER, PropertyGeneration.SETTER))) {
+            throw new IllegalStateException("Jackson deserializers require templates and getter and setter properties to be enabled");
+        }
+        ClassName structure = nameResolver.structure(compound);
+        List<CodeBlock> blocks = new ArrayList<>();
+        properties.forEach((name, property) -> {
+            TypeName type = toType(property);
+            CodeBlock.Builder block = CodeBlock.builder().add("case $S:\n", name).indent();
+            if (property.getCardinality() == Cardinality.LIST) {
+                block.beginControlFlow("if (parser.currentToken() == $T.START_ARRAY)", JSON_TOKEN)
+                    .addStatement(
+                        "$T values = value.$N()",
+                        Cardinality.LIST.asReturnType(type.box()),
+                        propertyResolver.accessor(structure, name, PropertyGeneration.GETTER)
+                    )
+                    .beginControlFlow("while (parser.nextToken() != $T.END_ARRAY)", JSON_TOKEN)
+                    .beginControlFlow("if (parser.currentToken() != $T.VALUE_NULL)", JSON_TOKEN)
+                    .addStatement("values.add($L)", toValue(type.box()))
+                    .endControlFlow()
+                    .endControlFlow()
+                    .nextControlFlow("else if (parser.currentToken() != $T.VALUE_NULL)", JSON_TOKEN)
+                    .addStatement(
+                        "throw context.wrongTokenException(parser, $T.class, $T.START_ARRAY, $S)",
+                        List.class, JSON_TOKEN, "Expected array for property '" + name + "'"
+                    )
+                    .endControlFlow();
+            } else {
+                block.beginControlFlow("if (parser.currentToken() != $T.VALUE_NULL)", JSON_TOKEN)
+                    .addStatement(
+                        "value.$N($L)",
+                        propertyResolver.accessor(structure, name, PropertyGeneration.SETTER),
+                        toValue(type)
+                    )
+                    .endControlFlow();
+            }
+            blocks.add(block.addStatement("return true").unindent().build());
+        });
+        List<ParameterSpec> parameters = Arrays.asList(
+            ParameterSpec.builder(structure, "value").build(),
+            ParameterSpec.builder(String.class, "name").build(),
+            ParameterSpec.builder(JSON_PARSER, "parser").build(),
+            ParameterSpec.builder(DESERIALIZATION_CONTEXT, "context").build()
+        );
+        TypeSpec.Builder builder = TypeSpec.classBuilder(structure.nestedClass(DESERIALIZER))
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .superclass(ParameterizedTypeName.get(STD_DESERIALIZER, structure))
+            .addMethod(MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PUBLIC)
+                .addStatement("super($T.class)", structure)
+                .build())
+            .addMethod(MethodSpec.methodBuilder("deserialize")
+                .addModifiers(Modifier.PUBLIC)
+                .addAnnotation(Override.class)
+                .returns(structure)
+                .addParameter(JSON_PARSER, "parser")
+                .addParameter(DESERIALIZATION_CONTEXT, "context")
+                .addException(IOException.class)
+                .addStatement("$T value = new $T()", structure, nameResolver.template(compound))
+                .addStatement("$T token = parser.currentToken()", JSON_TOKEN)
+                .beginControlFlow("if (token == $T.START_OBJECT)", JSON_TOKEN)
+                .addStatement("token = parser.nextToken()")
+                .nextControlFlow("else if (token != $T.FIELD_NAME && token != $T.END_OBJECT)", JSON_TOKEN, JSON_TOKEN)
+                .addStatement("return ($T) context.handleUnexpectedToken($T.class, parser)", structure, structure)
+                .endControlFlow()
+                .beginControlFlow("while (token == $T.FIELD_NAME)", JSON_TOKEN)
+                .addStatement("$T name = parser.currentName()", String.class)
+                .addStatement("parser.nextToken()")
+                .beginControlFlow("if (!deserializeProperty(value, name, parser, context))")
+                .addStatement("context.handleUnknownProperty(parser, this, value, name)")
+                .endControlFlow()
+                .addStatement("token = parser.nextToken()")
+                .endControlFlow()
+                .addStatement("return value")
+                .build());
+        CodeBlock.Builder code = CodeBlock.builder().add(MethodSplitter.split(
+            method -> builder.addMethod(method.toBuilder().addException(IOException.class).build()),
+            "deserializeProperty",
+            TypeName.BOOLEAN,
+            parameters,
+            blocks,
+            cases -> CodeBlock.builder().beginControlFlow("switch (name)").add(cases).endControlFlow().build(),
+            CodeBlock.builder().addStatement("return false").build(),
+            invocation -> CodeBlock.builder()
+                .beginControlFlow("if ($L)", invocation)
+                .addStatement("return true")
+                .endControlFlow()
+                .build(),
+            methodSizeLimit
+        ));
+        if (compound.getSuperDescription().isPresent()) {
+            code.addStatement(
+                "return $T.deserializeProperty(value, name, parser, context)",
+                nameResolver.structure(compound.getSuperDescription().get()).nestedClass(DESERIALIZER)
+            );
+        } else {
+            code.addStatement("return false");
+        }
+        return builder.addMethod(MethodSpec.methodBuilder("deserializeProperty")
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .returns(boolean.class)
+            .addParameters(parameters)
+            .addException(IOException.class)
+            .addCode(code.build())
+            .build()).build();
+    }
+
+    private TypeName toType(CompoundDescription.Property property) {
+        return property.getDescription().apply(
+            TypeName::get,
+            ignored -> nameResolver.structure(property.getDescription()),
+            ignored -> nameResolver.structure(property.getDescription())
+        );
+    }
+
+    private static CodeBlock toValue(TypeName type) {
+        if (type.equals(TypeName.get(String.class))) {
+            return CodeBlock.of(
+                "parser.currentToken() == $T.VALUE_STRING ? parser.getText() : context.readValue(parser, $T.class)",
+                JSON_TOKEN, String.class
+            );
+        } else if (type.box().equals(TypeName.INT.box())) {
+            return CodeBlock.of(
+                "parser.currentToken() == $T.VALUE_NUMBER_INT ? ($T) parser.getIntValue() : context.readValue(parser, $T.class)",
+                JSON_TOKEN, Integer.class, type
+            );
+        } else if (type.box().equals(TypeName.LONG.box())) {
+            return CodeBlock.of(
+                "parser.currentToken() == $T.VALUE_NUMBER_INT ? ($T) parser.getLongValue() : context.readValue(parser, $T.class)",
+                JSON_TOKEN, Long.class, type
+            );
+        } else if (type.box().equals(TypeName.BOOLEAN.box())) {
+            return CodeBlock.of(
+                "parser.currentToken().isBoolean() ? ($T) parser.getBooleanValue() : context.readValue(parser, $T.class)",
+                Boolean.class, type
+            );
+        } else {
+            return CodeBlock.of("context.readValue(parser, $T.class)", type.box());
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generator.emitter;
+
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.function.Predicate;
+
+import javax.lang.model.element.Modifier;
+
+import com.squareup.javapoet.*;
+
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api.ProjectingList;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generator.Cardinality;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generator.FeatureGeneration;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generator.ImplementationGeneration;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generator.PropertyGeneration;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generator.TypeResolver;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generator.compound.CompoundDescription;
+
+public class MapProjectionEmitter {
+
+    static final String MAP_PROJECTION = "MapProjection";
+
+    private static final String DELEGATE = "delegate";
+
+    private static final List<Class<?>> SOURCES = Arrays.asList(
+        String.class, Boolean.class, Integer.class, Long.class, Double.class, BigInteger.class, BigDecimal.class
+    );
+
+    private static final TypeName MAP = ParameterizedTypeName.get(Map.class, String.class, Object.class),
+        LIST = ParameterizedTypeName.get(List.class, Object.class);
+
+    private final Set<PropertyGeneration> propertyGenerations;
+    private final Set<FeatureGeneration> featureGenerations;
+    private final Set<ImplementationGeneration> implementationGenerations;
+    private final NameResolver nameResolver;
+    private final PropertyResolver propertyResolver;
+    private final TypeResolver typeResolver;
+    private final Predicate<CompoundDescription> mappable;
+
+    public MapProjectionEmitter(
+        Set<PropertyGeneration> propertyGenerations,
+        Set<FeatureGeneration> featureGenerations,
+        Set<ImplementationGeneration> implementationGenerations,
+        NameResolver nameResolver,
+        PropertyResolver propertyResolver,
+        TypeResolver typeResolver,
+        Predicate<CompoundDescription> mappable
+    ) {
+        this.propertyGenerations = propertyGenerations;
+        this.featureGenerations = featureGenerations;
+        this.implementationGenerations = implementationGenerations;
+        this.nameResolver = nameResolver;
+        this.propertyResolver = propertyResolver;
+        this.typeResolver = typeResolver;
+        this.mappable = mappable;
+    }
+
+    boolean isMappable(CompoundDescription compound) {
+        return mappable.test(compound);
+    }
+
+    TypeSpec projection(CompoundDescription compound, Map<String, CompoundDescription.Property> properties) {
+        ClassName structure = nameResolver.structure(compound);
+        ClassName projection = structure.nestedClass(MAP_PROJECTION);
+        TypeSpec.Builder builder = TypeSpec.classBuilder(projection)
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addSuperinterface(structure);
+        if (compound.getSuperDescription().isPresent()) {
+            builder.superclass(nameResolver.structure(compound.getSuperDescription().get()).nestedClass(MAP_PROJECTION))
+                .addMethod(MethodSpec.constructorBuilder()
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(MAP, DELEGATE)
+                    .addStatement("super($N)", DELEGATE)
+                    .build());
+        } else {
+            builder.addField(FieldSpec.builder(MAP, DELEGATE, Modifier.PROTECTED, Modifier.FINAL).build())
+                .addMethod(MethodSpec.constructorBuilder()
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(MAP, DELEGATE)
+                    .beginControlFlow("if ($N == null)", DELEGATE)
+                    .addStatement("throw new $T()", NullPointerException.class)
+                    .endControlFlow()
+                    .addStatement("this.$N = $N", DELEGATE, DELEGATE)
+                    .build())
+                .addMethod(MethodSpec.methodBuilder("unwrap")
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(MAP)
+                    .addStatement("return this.$N", DELEGATE)
+                    .build())
+                .addMethod(MethodSpec.methodBuilder("values")
+                    .addModifiers(Modifier.PROTECTED, Modifier.STATIC)
+                    .addAnnotation(AnnotationSpec.builder(SuppressWarnings.class).addMember("value", "$S", "unchecked").build())
+                    .returns(LIST)
+                    .addParameter(MAP, DELEGATE)
+                    .addParameter(String.class, "name")
+                    .addParameter(boolean.class, "create")
+                    .addStatement("$T value = $N.get(name)", Object.class, DELEGATE)
+                    .beginControlFlow("if (value == null && create)")
+                    .addStatement("$T values = new $T<>()", LIST, ArrayList.class)
+                    .addStatement("$N.put(name, values)", DELEGATE)
+                    .addStatement("return values")
+                    .nextControlFlow("else if (value == null || value instanceof $T<?>)", List.class)
+                    .addStatement("return ($T) value", LIST)
+                    .nextControlFlow("else")
+                    .addStatement(
+                        "throw new $T($S + name + $S + value.getClass().getTypeName())",
+                        IllegalStateException.class, "Expected list for property '", "' but found "
+                    )
+                    .endControlFlow()
+                    .build());
+        }
+        if (featureGenerations.contains(FeatureGeneration.COPY)) {
+            if (!implementationGenerations.contains(ImplementationGeneration.TEMPLATE)) {
+                throw new IllegalStateException("Map projections require templates to be enabled for the copy feature");
+            }
+            builder.addMethod(MethodSpec.methodBuilder("copy")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(structure)
+                .addAnnotation(Override.class)
+                .addStatement("return this.copyToTemplate()")
+                .build());
+        }
+        if (featureGenerations.contains(FeatureGeneration.READ_DELEGATE) && compound.getSuperDescription().isEmpty()) {
+            builder.addMethod(MethodSpec.methodBuilder("delegate")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(ParameterizedTypeName.get(ClassName.get(Optional.class), WildcardTypeName.subtypeOf(Object.class)))
+                .addAnnotation(Override.class)
+                .addStatement("return $T.of(this.$N)", Optional.class, DELEGATE)
+                .build());
+        }
+        int[] index = new int[1];
+        properties.forEach((name, property) -> {
+            String reader = "read" + index[0]++;
+            property.accept((cardinality, type) -> {
+                Class<?> boxed = MethodType.methodType(type).wrap().returnType();
+                builder.addMethod(toReader(reader, TypeName.get(boxed), toConversions(boxed)));
+                addProperty(builder, projection, structure, null, name, cardinality, TypeName.get(type), reader);
+            }, (cardinality, ignored) -> {
+                TypeName type = nameResolver.structure(property.getDescription());
+                builder.addMethod(toReader(reader, type, Collections.singletonMap(
+                    ClassName.get(String.class),
+                    CodeBlock.of("$T.valueOfName(($T) value)", type, String.class)
+                )));
+                addProperty(builder, projection, structure, null, name, cardinality, type, reader);
+            }, (cardinality, ignored) -> {
+                ClassName type = nameResolver.structure(property.getDescription());
+                builder.addMethod(toReader(reader, type, mappable.test(property.getDescription())
+                    ? Collections.singletonMap(ClassName.get(Map.class), CodeBlock.of("new $T(($T) value)", type.nestedClass(MAP_PROJECTION), MAP))
+                    : Collections.emptyMap()));
+                addProperty(builder, projection, structure, property.getDescription(), name, cardinality, type, reader);
+            });
+        });
+        if (featureGenerations.contains(FeatureGeneration.HASHCODE_EQUALS) && compound.getSuperDescription().isEmpty()) {
+            builder.addMethod(MethodSpec.methodBuilder("hashCode")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(int.class)
+                .addAnnotation(Override.class)
+                .addStatement("return this.getClass().hashCode() + 31 * this.$N.hashCode()", DELEGATE)
+                .build());
+            builder.addMethod(MethodSpec.methodBuilder("hashCode")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(int.class)
+                .addParameter(ParameterizedTypeName.get(Set.class, Object.class), "checked")
+                .addAnnotation(Override.class)
+                .addStatement("return this.hashCode()")
+                .build());
+            builder.addMethod(MethodSpec.methodBuilder("equals")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(boolean.class)
+                .addParameter(Object.class, "other")
+                .addAnnotation(Override.class)
+                .beginControlFlow("if (this == other)")
+                .addStatement("return true")
+                .nextControlFlow("else if (other == null || this.getClass() != other.getClass())")
+                .addStatement("return false")
+                .endControlFlow()
+                .addStatement("return this.$N.equals((($T) other).$N)", DELEGATE, projection, DELEGATE)
+                .build());
+            builder.addMethod(MethodSpec.methodBuilder("equals")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(boolean.class)
+                .addParameter(Object.class, "other")
+                .addParameter(ParameterizedTypeName.get(
+                    ClassName.get(Map.class), ClassName.OBJECT, ParameterizedTypeName.get(Set.class, Object.class)
+                ), "checked")
+                .addAnnotation(Override.class)
+                .addStatement("return this.equals(other)")
+                .build());
+        }
+        if (featureGenerations.contains(FeatureGeneration.TO_STRING)) {
+            if (compound.getSuperDescription().isEmpty()) {
+                builder.addMethod(MethodSpec.methodBuilder("toString")
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(String.class)
+                    .addAnnotation(Override.class)
+                    .addStatement("$T builder = new $T()", StringBuilder.class, StringBuilder.class)
+                    .addStatement("this.toString(builder, $T.emptySet())", Collections.class)
+                    .addStatement("return builder.toString()")
+                    .build());
+            }
+            builder.addMethod(MethodSpec.methodBuilder("toString")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(void.class)
+                .addParameter(StringBuilder.class, "builder")
+                .addParameter(ParameterizedTypeName.get(Set.class, Object.class), "checked")
+                .addAnnotation(Override.class)
+                .addStatement(
+                    "builder.append($S).append($T.class.getTypeName()).append($S).append(this.$N)",
+                    "Map projection of structure ", structure, ": ", DELEGATE
+                )
+                .build());
+        }
+        return builder.build();
+    }
+
+    private Map<TypeName, CodeBlock> toConversions(Class<?> type) {
+        Map<TypeName, CodeBlock> conversions = new LinkedHashMap<>();
+        SOURCES.stream().filter(source -> source != type).forEach(source -> {
+            try {
+                typeResolver.convert(source, type, CodeBlock.of("(($T) value)", source)).ifPresent(
+                    conversion -> conversions.put(TypeName.get(source), conversion)
+                );
+            } catch (IllegalArgumentException ignored) {
+            }
+        });
+        return conversions;
+    }
+
+    private static MethodSpec toReader(String name, TypeName type, Map<TypeName, CodeBlock> conversions) {
+        CodeBlock.Builder code = CodeBlock.builder()
+            .beginControlFlow("if (value == null || value instanceof $T)", type)
+            .addStatement("return ($T) value", type);
+        conversions.forEach((source, conversion) -> code
+            .nextControlFlow("else if (value instanceof $T)", source)
+            .addStatement("return $L", conversion));
+        return MethodSpec.methodBuilder(name)
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+            .addAnnotations(conversions.containsKey(ClassName.get(Map.class))
+                ? Collections.singleton(AnnotationSpec.builder(SuppressWarnings.class).addMember("value", "$S", "unchecked").build())
+                : Collections.emptySet())
+            .returns(type)
+            .addParameter(Object.class, "value")
+            .addCode(code.nextControlFlow("else")
+                .addStatement(
+                    "throw new $T($S + value.getClass().getTypeName() + $S + $T.class.getTypeName())",
+                    IllegalStateException.class, "Cannot convert ", " to ", type
+                )
+                .endControlFlow()
+                .build())
+            .build();
+    }
+
+    private CodeBlock toWriter(CompoundDescription target, ClassName type, String variable) {
+        if (target != null && mappable.test(target)) {
+            return CodeBlock.of(
+                "$N instanceof $T ? (($T) $N).unwrap() : $N",
+                variable, type.nestedClass(MAP_PROJECTION), type.nestedClass(MAP_PROJECTION), variable, variable
+            );
+        } else {
+            return CodeBlock.of("$N", variable);
+        }
+    }
+
+    private void addProperty(
+        TypeSpec.Builder builder, ClassName projection, ClassName structure, CompoundDescription target,
+        String name, Cardinality cardinality, TypeName type, String reader
+    ) {
+        boolean branch = target != null;
+        if (propertyGenerations.contains(PropertyGeneration.GETTER)) {
+            CodeBlock.Builder getter = CodeBlock.builder();
+            switch (cardinality) {
+            case SINGLE:
+                if (type.isPrimitive()) {
+                    getter.addStatement("$T value = $N(this.$N.get($S))", type.box(), reader, DELEGATE, name)
+                        .addStatement("return value == null ? $L : value", type.equals(TypeName.BOOLEAN) ? "false" : "0");
+                } else {
+                    getter.addStatement("return $N(this.$N.get($S))", reader, DELEGATE, name);
+                }
+                break;
+            case OPTIONAL:
+                getter.addStatement("return $T.ofNullable($N(this.$N.get($S)))", Optional.class, reader, DELEGATE, name);
+                break;
+            case LIST:
+                getter.addStatement(
+                    "return $T.of(values(this.$N, $S, $L), $T::$N, value -> $L)",
+                    ProjectingList.class,
+                    DELEGATE, name, propertyGenerations.contains(PropertyGeneration.SETTER),
+                    projection, reader,
+                    toWriter(target, branch ? (ClassName) type : null, "value")
+                );
+                break;
+            default:
+                throw new IllegalStateException();
+            }
+            builder.addMethod(propertyResolver.getter(structure, name, type, cardinality, true, true)
+                .addCode(getter.build())
+                .build());
+        }
+        if (!Collections.disjoint(propertyGenerations, EnumSet.of(
+            PropertyGeneration.SETTER, PropertyGeneration.TRIAL, PropertyGeneration.FLUENT
+        )) || branch && !Collections.disjoint(propertyGenerations, EnumSet.of(
+            PropertyGeneration.MERGE, PropertyGeneration.FACTORY
+        ))) {
+            CodeBlock.Builder setter = CodeBlock.builder();
+            CodeBlock value = toWriter(target, branch ? (ClassName) type : null, name);
+            if (cardinality == Cardinality.LIST) {
+                setter.addStatement("values(this.$N, $S, true).add($L)", DELEGATE, name, value);
+            } else if (type.isPrimitive()) {
+                setter.addStatement("this.$N.put($S, $N)", DELEGATE, name, name);
+            } else {
+                setter.beginControlFlow("if ($N == null)", name)
+                    .addStatement("this.$N.remove($S)", DELEGATE, name)
+                    .nextControlFlow("else")
+                    .addStatement("this.$N.put($S, $L)", DELEGATE, name, value)
+                    .endControlFlow();
+            }
+            builder.addMethod(propertyResolver.setter(
+                structure, name, type,
+                true, propertyGenerations.contains(PropertyGeneration.SETTER)
+            ).addCode(setter.build()).build());
+        }
+        if (propertyGenerations.contains(PropertyGeneration.TRIAL)) {
+            builder.addMethod(propertyResolver.trial(structure, name, type, true, true));
+        }
+        if (propertyGenerations.contains(PropertyGeneration.FLUENT)) {
+            builder.addMethod(propertyResolver.fluent(structure, name, type, cardinality, true, true));
+        }
+        if (branch && propertyGenerations.contains(PropertyGeneration.MERGE)) {
+            if (!featureGenerations.contains(FeatureGeneration.COPY)) {
+                throw new IllegalStateException("Merge property requires the copy feature to be enabled");
+            }
+            builder.addMethod(propertyResolver.merge(
+                structure, name, type, true,
+                variable -> CodeBlock.builder().add("$L.copyToTemplate()", variable).build()
+            ));
+        }
+        if (branch && propertyGenerations.contains(PropertyGeneration.FACTORY)) {
+            builder.addMethod(propertyResolver.factory(
+                structure, name, type, null,
+                target.getSort() == CompoundDescription.Sort.BRANCH,
+                () -> {
+                    if (mappable.test(target)) {
+                        return Optional.of(CodeBlock.of(
+                            "new $T(new $T<>())",
+                            ((ClassName) type).nestedClass(MAP_PROJECTION), LinkedHashMap.class
+                        ));
+                    } else if (implementationGenerations.contains(ImplementationGeneration.TEMPLATE)) {
+                        return Optional.of(CodeBlock.of("new $T()", nameResolver.template(target)));
+                    } else {
+                        return Optional.empty();
+                    }
+                }
+            ));
+        }
+        if (propertyGenerations.contains(PropertyGeneration.OWNER)) {
+            builder.addMethod(propertyResolver.owner(structure, name, cardinality, true));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generator.emitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import javax.lang.model.element.Modifier;
+
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.TypeName;
+
+class MethodSplitter {
+
+    private MethodSplitter() {
+        throw new UnsupportedOperationException();
+    }
+
+    static CodeBlock split(
+        Consumer<MethodSpec> helpers,
+        String name,
+        TypeName returns,
+        List<ParameterSpec> parameters,
+        List<CodeBlock> blocks,
+        CodeBlock suffix,
+        Function<CodeBlock, CodeBlock> invocation,
+        int limit
+    ) {
+        return split(helpers, name, returns, parameters, blocks, Function.identity(), suffix, invocation, limit);
+    }
+
+    static CodeBlock split(
+        Consumer<MethodSpec> helpers,
+        String name,
+        TypeName returns,
+        List<ParameterSpec> parameters,
+        List<CodeBlock> blocks,
+        Function<CodeBlock, CodeBlock> body,
+        CodeBlock suffix,
+        Function<CodeBlock, CodeBlock> invocation,
+        int limit
+    ) {
+        List<CodeBlock> chunks = new ArrayList<>();
+        CodeBlock.Builder chunk = CodeBlock.builder();
+        int size = 0;
+        for (CodeBlock block : blocks) {
+            int estimate = block.toString().length();
+            if (size > 0 && size + estimate > limit) {
+                chunks.add(chunk.build());
+                chunk = CodeBlock.builder();
+                size = 0;
+            }
+            chunk.add(block);
+            size += estimate;
+        }
+        if (chunks.isEmpty()) {
+            return body.apply(chunk.build());
+        }
+        chunks.add(chunk.build());
+        CodeBlock arguments = parameters.stream()
+            .map(parameter -> CodeBlock.of("$N", parameter))
+            .collect(CodeBlock.joining(", "));
+        CodeBlock.Builder code = CodeBlock.builder();
+        for (int index = 0; index < chunks.size(); index++) {
+            helpers.accept(MethodSpec.methodBuilder(name + index)
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                .returns(returns)
+                .addParameters(parameters)
+                .addCode(body.apply(chunks.get(index)))
+                .addCode(suffix)
+                .build());
+            code.add(invocation.apply(CodeBlock.of("$L$L($L)", name, index, arguments)));
+        }
+        return code.build();
+    }
+}
@@ -3,6 +3,7 @@ package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generato
 import java.util.*;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -12,18 +13,22 @@ import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 import com.squareup.javapoet.WildcardTypeName;
 import javax.lang.model.element.Modifier;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api.CachingProjectingList;
 import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api.DelegationOf;
 import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api.ExpansionOf;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api.MemoizedConversion;
 import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api.ProjectingEmptyList;
 import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api.ProjectingList;
 import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api.ProjectingSingletonList;
 import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api.ProjectionOf;
 import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api.ProjectionTypeException;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api.TypeDispatcher;
 import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generator.AccessResolver;
 import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generator.Cardinality;
 import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generator.FeatureGeneration;
@@ -40,9 +45,14 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
     private final Set<FeatureGeneration> featureGenerations;
     private final NameResolver nameResolver;
     private final PropertyResolver propertyResolver;
+    private final Predicate<CompoundDescription> recursion;
     private final TypeResolver typeResolver;
     private final AccessResolver accessResolver;
     private final boolean exceptionOnEmptySetter;
+    private final boolean iterativeCopies;
+    private final boolean typeDispatch;
+    private final int methodSizeLimit;
+    private final boolean finalClasses;
     private final BiConsumer<ClassName, JavaFile> consumer;
 
     public ProjectionEmitter(
@@ -50,18 +60,28 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
         Set<FeatureGeneration> featureGenerations,
         NameResolver nameResolver,
         PropertyResolver propertyResolver,
+        Predicate<CompoundDescription> recursion,
         TypeResolver typeResolver,
         AccessResolver accessResolver,
         boolean exceptionOnEmptySetter,
+        boolean iterativeCopies,
+        boolean typeDispatch,
+        int methodSizeLimit,
+        boolean finalClasses,
         BiConsumer<ClassName, JavaFile> consumer
     ) {
         this.propertyGenerations = propertyGenerations;
         this.featureGenerations = featureGenerations;
         this.nameResolver = nameResolver;
         this.propertyResolver = propertyResolver;
+        this.recursion = recursion;
         this.typeResolver = typeResolver;
         this.accessResolver = accessResolver;
         this.exceptionOnEmptySetter = exceptionOnEmptySetter;
+        this.iterativeCopies = iterativeCopies;
+        this.typeDispatch = typeDispatch;
+        this.methodSizeLimit = methodSizeLimit;
+        this.finalClasses = finalClasses;
         this.consumer = consumer;
     }
 
@@ -73,9 +93,36 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
             CodeBlock.Builder wrap = CodeBlock.builder()
                 .beginControlFlow("if ($N == null)", DELEGATE)
                 .addStatement("return null");
+            Map<SingularDescription, CompoundDescription> subtypes = new LinkedHashMap<>();
             singular.getSubDescriptions().forEach(singularSubtype -> compound.getSubDescriptions().stream()
                 .filter(compoundSubtype -> compoundSubtype.getSingulars().contains(singularSubtype))
-                .forEach(compoundSubtype -> wrap.nextControlFlow(
+                .forEach(compoundSubtype -> subtypes.putIfAbsent(singularSubtype, compoundSubtype)));
+            FieldSpec dispatcher = null;
+            if (typeDispatch && subtypes.size() > 1) {
+                TypeName function = ParameterizedTypeName.get(ClassName.get(Function.class), TypeName.OBJECT, projection);
+                CodeBlock.Builder initializer = CodeBlock.builder().add(
+                    "$T.<$T>builder(false, $N -> new $T(($T) $N))",
+                    TypeDispatcher.class, function, DELEGATE, projection, singular.getType(), DELEGATE
+                ).indent();
+                subtypes.forEach((singularSubtype, compoundSubtype) -> initializer.add(
+                    "\n.with($T.class, $N -> $T.wrap(($T) $N))",
+                    singularSubtype.getType(),
+                    DELEGATE,
+                    nameResolver.projection(compoundSubtype, singularSubtype),
+                    singularSubtype.getType(),
+                    DELEGATE
+                ));
+                dispatcher = FieldSpec.builder(
+                    ParameterizedTypeName.get(ClassName.get(TypeDispatcher.class), function),
+                    "WRAP",
+                    Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL
+                ).initializer(initializer.add("\n.build()").unindent().build()).build();
+                wrap.nextControlFlow("else").addStatement(
+                    "return $N.get($N.getClass()).apply($N)",
+                    dispatcher, DELEGATE, DELEGATE
+                ).endControlFlow();
+            } else {
+                subtypes.forEach((singularSubtype, compoundSubtype) -> wrap.nextControlFlow(
                     "else if ($N instanceof $T)",
                     DELEGATE,
                     singularSubtype.getType()
@@ -84,7 +131,11 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
                     nameResolver.projection(compoundSubtype, singularSubtype),
                     singularSubtype.getType(),
                     DELEGATE
-                )));
+                ));
+                wrap.nextControlFlow("else")
+                    .addStatement("return new $T($N)", projection, DELEGATE)
+                    .endControlFlow();
+            }
             TypeSpec.Builder builder = TypeSpec.classBuilder(projection)
                 .addSuperinterface(structure)
                 .addModifiers(Modifier.PUBLIC)
@@ -106,10 +157,7 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
                     .addParameter(singular.getBoxedType(), DELEGATE)
                     .returns(projection)
                     .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
-                    .addCode(wrap.nextControlFlow("else")
-                        .addStatement("return new $T($N)", projection, DELEGATE)
-                        .endControlFlow()
-                        .build())
+                    .addCode(wrap.build())
                     .build())
                 .addMethod(MethodSpec.methodBuilder("unwrap")
                     .addParameter(structure, PROJECTION)
@@ -130,6 +178,12 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
                         .endControlFlow()
                         .build())
                     .build());
+            if (dispatcher != null) {
+                builder.addField(dispatcher);
+            }
+            if (finalClasses && singular.getSubDescriptions().isEmpty()) {
+                builder.addModifiers(Modifier.FINAL);
+            }
             if (singular.isLeaf() && compound.getSort() == CompoundDescription.Sort.BRANCH) {
                 CompoundDescription.Property expansion = properties.get(CompoundDescription.EXPANSION);
                 CodeBlock.Builder value = CodeBlock.builder().add("value");
@@ -206,8 +260,9 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
                         ))).orElse(null),
                         accessResolver.constructor(singular.getType())
                             .map(value -> CodeBlock.builder().add("new $T($L)", projection, value).build())
-                            .orElse(null)
-                    )).addMethod(propertyResolver.copyOf(
+                            .orElse(null),
+                        iterativeCopies
+                    )).addMethods(propertyResolver.copyOf(
                             structure,
                             properties.keySet().stream().filter(singular::hasProperty).collect(Collectors.toList()),
                             name -> properties.get(name).getDescription().getSort() != CompoundDescription.Sort.BRANCH,
@@ -221,7 +276,8 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
                                 "copyTo($T.class, $N).orElseThrow()",
                                 singular.getProperties().get(name).getDescription().getType(),
                                 copies
-                            ).build()
+                            ).build(),
+                            methodSizeLimit
                     ));
                     builder.addMethod(MethodSpec.methodBuilder("copy")
                         .addModifiers(Modifier.PUBLIC)
@@ -313,11 +369,11 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
                 addHashCode(builder, projection, compound.getSuperDescription().flatMap(superCompound -> singular.getSuperDescription().map(superSingular -> nameResolver.projection(
                     superCompound,
                     superSingular
-                ))).orElse(null), singular, properties);
+                ))).orElse(null), recursion.test(compound), singular, properties);
                 addEquals(builder, projection, compound.getSuperDescription().flatMap(superCompound -> singular.getSuperDescription().map(superSingular -> nameResolver.projection(
                     superCompound,
                     superSingular
-                ))).orElse(null), singular, properties);
+                ))).orElse(null), recursion.test(compound), singular, properties);
             }
             if (featureGenerations.contains(FeatureGeneration.TO_STRING)) {
                 addToString(builder, structure, projection, compound.getSuperDescription().flatMap(superCompound -> singular.getSuperDescription().map(superSingular -> nameResolver.projection(
@@ -357,6 +413,16 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
                 .addCode(getter.build())
                 .build());
         }
+        if (cardinality == Cardinality.OPTIONAL && propertyGenerations.contains(PropertyGeneration.NULLABLE)) {
+            builder.addMethod(propertyResolver.nullable(structure, name, type, true)
+                .addStatement("return null")
+                .build());
+            if (type.isBoxedPrimitive()) {
+                builder.addMethod(propertyResolver.nullable(structure, name, type.unbox(), true)
+                    .addStatement("return $N", PropertyResolver.ABSENT)
+                    .build());
+            }
+        }
         if (!name.isEmpty()) {
             if (propertyGenerations.contains(PropertyGeneration.SETTER)) {
                 CodeBlock implementation = exceptionOnEmptySetter ? CodeBlock.builder().addStatement(
@@ -430,10 +496,47 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
         TypeSpec.Builder builder, ClassName structure, SingularDescription.Property property,
         String name, Cardinality cardinality, Class<?> owner, Class<?> type
     ) {
+        CodeBlock memoization = null;
+        if (featureGenerations.contains(FeatureGeneration.MEMOIZED_CONVERSIONS)
+            && !name.isEmpty()
+            && cardinality != Cardinality.LIST
+            && !property.getDescription().getType().isPrimitive()) {
+            Optional<CodeBlock> conversion = typeResolver.convert(
+                property.getDescription().getType(), type, CodeBlock.builder().add("value").build()
+            );
+            if (conversion.isPresent()) {
+                String field = name + "Conversion";
+                TypeName memoized = ParameterizedTypeName.get(
+                    ClassName.get(MemoizedConversion.class),
+                    TypeName.get(property.getDescription().getType()),
+                    TypeName.get(type).box()
+                );
+                builder.addField(FieldSpec.builder(memoized, field).addModifiers(Modifier.PRIVATE).build());
+                memoization = CodeBlock.builder()
+                    .addStatement(
+                        "$T value = $L",
+                        property.getDescription().getType(),
+                        accessResolver.getter(
+                            owner, property.getDescription().getType(), property.getName(), property.getCardinality(),
+                            CodeBlock.builder().add("this.$N", DELEGATE).build()
+                        )
+                    )
+                    .addStatement("$T conversion = this.$N", memoized, field)
+                    .beginControlFlow("if (conversion == null || !conversion.isConversionOf(value))")
+                    .addStatement("conversion = new $T<>(value, $L)", MemoizedConversion.class, conversion.get())
+                    .addStatement("this.$N = conversion", field)
+                    .endControlFlow()
+                    .build();
+            }
+        }
         if (propertyGenerations.contains(PropertyGeneration.GETTER)) {
             CodeBlock.Builder getter;
             switch (cardinality) {
             case SINGLE: {
+                if (memoization != null) {
+                    getter = memoization.toBuilder().addStatement("return conversion.getConversion()");
+                    break;
+                }
                 CodeBlock value = accessResolver.getter(
                     owner, property.getDescription().getType(), property.getName(), property.getCardinality(),
                     CodeBlock.builder().add("this.$N", DELEGATE).build()
@@ -445,6 +548,10 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
                 break;
             }
             case OPTIONAL: {
+                if (memoization != null) {
+                    getter = memoization.toBuilder().addStatement("return $T.ofNullable(conversion.getConversion())", Optional.class);
+                    break;
+                }
                 CodeBlock value = accessResolver.getter(
                     owner, property.getDescription().getType(), property.getName(), property.getCardinality(),
                     CodeBlock.builder().add("this.$N", DELEGATE).build()
@@ -457,7 +564,36 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
                 break;
             }
             case LIST:
-                if (property.getCardinality() == Cardinality.LIST) {
+                if (property.getCardinality() == Cardinality.LIST
+                    && featureGenerations.contains(FeatureGeneration.CACHED_LIST_CONVERSIONS)
+                    && typeResolver.convert(
+                    property.getDescription().getType(), type, CodeBlock.builder().add("value").build()
+                ).isPresent()) {
+                    String conversions = name + "Conversions";
+                    builder.addField(FieldSpec.builder(ParameterizedTypeName.get(ClassName.get(List.class), TypeName.get(type)), conversions)
+                        .addModifiers(Modifier.PRIVATE, Modifier.VOLATILE)
+                        .build());
+                    getter = CodeBlock.builder().add(
+                        "this.$N = $T.ofConversions(this.$N, $L, $L, $L)",
+                        conversions,
+                        CachingProjectingList.class,
+                        conversions,
+                        accessResolver.getter(
+                            owner, property.getDescription().getType(), property.getName(), property.getCardinality(),
+                            CodeBlock.builder().add("this.$N", DELEGATE).build()
+                        ),
+                        typeResolver.convert(
+                            property.getDescription().getType(), type, CodeBlock.builder().add("value").build()
+                        ).map(code -> CodeBlock.builder().add("value -> $L", code).build()).orElseThrow(),
+                        typeResolver.convert(
+                            type, property.getDescription().getType(), CodeBlock.builder().add("value").build()
+                        ).map(code ->
+                            CodeBlock.builder().add("value -> $L", code)
+                        ).orElseGet(() ->
+                            CodeBlock.builder().add("$T.identity()", Function.class)
+                        ).build()
+                    );
+                } else if (property.getCardinality() == Cardinality.LIST) {
                     getter = CodeBlock.builder().add(
                         "$T.of($L, $L, $L)",
                         ProjectingList.class,
@@ -524,6 +660,31 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
                 .addCode(getter.build())
                 .build());
         }
+        if (cardinality == Cardinality.OPTIONAL && propertyGenerations.contains(PropertyGeneration.NULLABLE)) {
+            CodeBlock value = accessResolver.getter(
+                owner, property.getDescription().getType(), property.getName(), property.getCardinality(),
+                CodeBlock.builder().add("this.$N", DELEGATE).build()
+            );
+            CodeBlock converted = typeResolver.convert(property.getDescription().getType(), type, value).orElse(value);
+            builder.addMethod(propertyResolver.nullable(structure, name, TypeName.get(type), true)
+                .addCode(memoization == null
+                    ? CodeBlock.builder().addStatement("return $L", converted).build()
+                    : memoization.toBuilder().addStatement("return conversion.getConversion()").build())
+                .build());
+            if (TypeName.get(type).isBoxedPrimitive()) {
+                builder.addMethod(propertyResolver.nullable(structure, name, TypeName.get(type).unbox(), true)
+                    .addCode(memoization != null ? memoization.toBuilder()
+                        .addStatement("$T converted = conversion.getConversion()", type)
+                        .addStatement("return converted == null ? $N : converted", PropertyResolver.ABSENT)
+                        .build() : property.getDescription().getType().isPrimitive()
+                        ? CodeBlock.builder().addStatement("return $L", converted).build()
+                        : CodeBlock.builder()
+                            .addStatement("$T value = $L", type, converted)
+                            .addStatement("return value == null ? $N : value", PropertyResolver.ABSENT)
+                            .build())
+                    .build());
+            }
+        }
         if (!name.isEmpty()) {
             if (!Collections.disjoint(propertyGenerations, EnumSet.of(
                 PropertyGeneration.SETTER, PropertyGeneration.TRIAL, PropertyGeneration.FLUENT
@@ -650,6 +811,18 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
                 .addCode(getter.build())
                 .build());
         }
+        if (cardinality == Cardinality.OPTIONAL && propertyGenerations.contains(PropertyGeneration.NULLABLE)) {
+            builder.addMethod(propertyResolver.nullable(structure, name, type, true)
+                .addStatement(
+                    "return $T.wrap($L)",
+                    type,
+                    accessResolver.getter(
+                        owner, property.getDescription().getType(), property.getName(), property.getCardinality(),
+                        CodeBlock.builder().add("this.$N", DELEGATE).build()
+                    )
+                )
+                .build());
+        }
         if (!Collections.disjoint(propertyGenerations, EnumSet.of(
             PropertyGeneration.SETTER, PropertyGeneration.TRIAL, PropertyGeneration.FLUENT
         ))) {
@@ -697,6 +870,12 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
             CodeBlock.Builder getter;
             switch (cardinality) {
             case SINGLE:
+                if (featureGenerations.contains(FeatureGeneration.MEMOIZED_BRANCHES)) {
+                    getter = memoized(builder, name, delegate, delegate, property, owner, CodeBlock.builder()
+                        .beginControlFlow("if ($T.unwrap(projection) != value)", delegate)
+                        .addStatement("projection = $T.wrap(value)", delegate));
+                    break;
+                }
                 getter = CodeBlock.builder().addStatement(
                     "return $T.wrap($L)",
                     delegate,
@@ -707,6 +886,15 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
                 );
                 break;
             case OPTIONAL:
+                if (featureGenerations.contains(FeatureGeneration.MEMOIZED_BRANCHES)) {
+                    getter = memoized(
+                        builder, name, ParameterizedTypeName.get(ClassName.get(Optional.class), type), delegate, property, owner,
+                        CodeBlock.builder()
+                            .beginControlFlow("if (projection == null || $T.unwrap(projection.orElse(null)) != value)", delegate)
+                            .addStatement("projection = $T.ofNullable($T.wrap(value))", Optional.class, delegate)
+                    );
+                    break;
+                }
                 getter = CodeBlock.builder().addStatement(
                     "return $T.ofNullable($T.wrap($L))",
                     Optional.class,
@@ -718,7 +906,25 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
                 );
                 break;
             case LIST:
-                if (property.getCardinality() == Cardinality.LIST) {
+                if (property.getCardinality() == Cardinality.LIST
+                    && featureGenerations.contains(FeatureGeneration.CACHED_LIST_PROJECTIONS)) {
+                    String projections = name + "Projections";
+                    builder.addField(FieldSpec.builder(ParameterizedTypeName.get(ClassName.get(List.class), type), projections)
+                        .addModifiers(Modifier.PRIVATE, Modifier.VOLATILE)
+                        .build());
+                    getter = CodeBlock.builder().add(
+                        "this.$N = $T.of(this.$N, $L, $T::wrap, $T::unwrap)",
+                        projections,
+                        CachingProjectingList.class,
+                        projections,
+                        accessResolver.getter(
+                            owner, property.getDescription().getType(), property.getName(), property.getCardinality(),
+                            CodeBlock.builder().add("this.$N", DELEGATE).build()
+                        ),
+                        delegate,
+                        delegate
+                    );
+                } else if (property.getCardinality() == Cardinality.LIST) {
                     getter = CodeBlock.builder().add(
                         "$T.of($L, $T::wrap, $T::unwrap)",
                         ProjectingList.class,
@@ -761,6 +967,18 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
                 .addCode(getter.build())
                 .build());
         }
+        if (cardinality == Cardinality.OPTIONAL && propertyGenerations.contains(PropertyGeneration.NULLABLE)) {
+            builder.addMethod(propertyResolver.nullable(structure, name, type, true)
+                .addStatement(
+                    "return $T.wrap($L)",
+                    delegate,
+                    accessResolver.getter(
+                        owner, property.getDescription().getType(), property.getName(), property.getCardinality(),
+                        CodeBlock.builder().add("this.$N", DELEGATE).build()
+                    )
+                )
+                .build());
+        }
         if (!Collections.disjoint(propertyGenerations, EnumSet.of(
             PropertyGeneration.SETTER,
             PropertyGeneration.TRIAL,
@@ -962,6 +1180,29 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
         }
     }
 
+    private CodeBlock.Builder memoized(
+        TypeSpec.Builder builder, String name, TypeName type, ClassName delegate,
+        SingularDescription.Property property, Class<?> owner, CodeBlock.Builder resolution
+    ) {
+        String memoization = name + "Projection";
+        builder.addField(FieldSpec.builder(type, memoization).addModifiers(Modifier.PRIVATE).build());
+        return CodeBlock.builder()
+            .addStatement(
+                "$T value = $L",
+                TypeName.get(property.getDescription().getType()).box(),
+                accessResolver.getter(
+                    owner, property.getDescription().getType(), property.getName(), property.getCardinality(),
+                    CodeBlock.builder().add("this.$N", DELEGATE).build()
+                )
+            )
+            .addStatement("$T projection = this.$N", type, memoization)
+            .add(resolution
+                .addStatement("this.$N = projection", memoization)
+                .endControlFlow()
+                .build())
+            .addStatement("return projection");
+    }
+
     private void addTypedLeafExpansion(TypeSpec.Builder builder, ClassName structure, Class<?> type, Class<?> target) {
         builder.addAnnotation(AnnotationSpec.builder(ExpansionOf.class)
             .addMember("value", CodeBlock.builder().add("$T.class", structure).build())
@@ -1009,7 +1250,7 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
 
     private void addHashCode(
         TypeSpec.Builder builder,
-        ClassName projection, ClassName base,
+        ClassName projection, ClassName base, boolean recursive,
         SingularDescription singular, Map<String, CompoundDescription.Property> properties
     ) {
         if (base == null) {
@@ -1017,9 +1258,12 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
                 .addModifiers(Modifier.PUBLIC)
                 .returns(int.class)
                 .addAnnotation(Override.class)
-                .addCode(CodeBlock.builder().addStatement(
+                .addCode(recursive ? CodeBlock.builder().addStatement(
                     "return this.hashCode($T.newSetFromMap(new $T<>()))",
                     Collections.class, IdentityHashMap.class
+                ).build() : CodeBlock.builder().addStatement(
+                    "return this.hashCode($T.emptySet())",
+                    Collections.class
                 ).build())
                 .build());
         }
@@ -1041,7 +1285,9 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
                 doHashCode.addStatement("hashCode = hashCode + value.hashCode()");
             }
         } else {
+            List<CodeBlock> blocks = new ArrayList<>();
             singular.getProperties().forEach((name, property) -> {
+                CodeBlock.Builder block = CodeBlock.builder();
                 Class<?> target = property.getDescription().getType();
                 CodeBlock value = accessResolver.getter(
                     singular.getType(), target, property.getName(), property.getCardinality(),
@@ -1049,17 +1295,17 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
                 );
                 if (property.getDescription().isLeaf()) {
                     if (target.isPrimitive()) {
-                        doHashCode.addStatement("hashCode = hashCode + $T.hashCode($L)", TypeName.get(target).box(), value);
+                        block.addStatement("hashCode = hashCode + $T.hashCode($L)", TypeName.get(target).box(), value);
                     } else if (property.getCardinality() != Cardinality.LIST) {
-                        doHashCode.beginControlFlow("if ($L != null)", value)
+                        block.beginControlFlow("if ($L != null)", value)
                             .addStatement("hashCode = hashCode + $L.hashCode()", value)
                             .endControlFlow();
                     } else {
-                        doHashCode.addStatement("hashCode = hashCode + $L.hashCode()", value);
+                        block.addStatement("hashCode = hashCode + $L.hashCode()", value);
                     }
                 } else {
                     if (property.getCardinality() == Cardinality.LIST) {
-                        doHashCode.beginControlFlow("for (int index = 0; index < $L.size(); index++)", value)
+                        block.beginControlFlow("for (int index = 0; index < $L.size(); index++)", value)
                             .addStatement(
                                 "hashCode = hashCode + (index + 1) * $T.hashCode($L.get(index), checked)",
                                 nameResolver.projection(properties.get(name).getDescription(), property.getDescription()),
@@ -1067,7 +1313,7 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
                             )
                             .endControlFlow();
                     } else {
-                        doHashCode.beginControlFlow("if ($L != null)", value)
+                        block.beginControlFlow("if ($L != null)", value)
                             .addStatement(
                                 "hashCode = hashCode + $T.hashCode($L, checked)",
                                 nameResolver.projection(properties.get(name).getDescription(), property.getDescription()),
@@ -1076,8 +1322,22 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
                             .endControlFlow();
                     }
                 }
-                doHashCode.addStatement("hashCode = hashCode * 31");
+                blocks.add(block.addStatement("hashCode = hashCode * 31").build());
             });
+            doHashCode.add(MethodSplitter.split(
+                builder::addMethod,
+                "doHashCode",
+                TypeName.INT,
+                Arrays.asList(
+                    ParameterSpec.builder(singular.getType(), "value").build(),
+                    ParameterSpec.builder(ParameterizedTypeName.get(Set.class, Object.class), "checked").build(),
+                    ParameterSpec.builder(int.class, "hashCode").build()
+                ),
+                blocks,
+                CodeBlock.builder().addStatement("return hashCode").build(),
+                invocation -> CodeBlock.builder().addStatement("hashCode = $L", invocation).build(),
+                methodSizeLimit
+            ));
         }
         builder.addMethod(MethodSpec.methodBuilder("doHashCode")
             .addModifiers(Modifier.PROTECTED, Modifier.STATIC)
@@ -1087,7 +1347,7 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
             .addCode(doHashCode.addStatement("return hashCode").build())
             .build());
         CodeBlock.Builder hashCode = CodeBlock.builder();
-        if (!singular.isLeaf()) {
+        if (recursive && !singular.isLeaf()) {
             hashCode.beginControlFlow("if (!checked.add(value))")
                 .addStatement("return 0")
                 .endControlFlow();
@@ -1108,7 +1368,7 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
 
     private void addEquals(
         TypeSpec.Builder builder,
-        ClassName projection, ClassName base,
+        ClassName projection, ClassName base, boolean recursive,
         SingularDescription singular, Map<String, CompoundDescription.Property> properties
     ) {
         if (base == null) {
@@ -1117,9 +1377,12 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
                 .returns(boolean.class)
                 .addParameter(Object.class, "other")
                 .addAnnotation(Override.class)
-                .addCode(CodeBlock.builder().addStatement(
+                .addCode(recursive ? CodeBlock.builder().addStatement(
                     "return this.equals(other, new $T<>())",
                     IdentityHashMap.class
+                ).build() : CodeBlock.builder().addStatement(
+                    "return this.equals(other, $T.emptyMap())",
+                    Collections.class
                 ).build())
                 .build());
         }
@@ -1144,16 +1407,18 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
         CodeBlock.Builder doEquals = CodeBlock.builder();
         if (singular.isLeaf()) {
             if (singular.getType() == float.class) {
-                doEquals.addStatement("return $T.compareTo(left, right) == 0", Float.class);
+                doEquals.addStatement("return $T.compare(left, right) == 0", Float.class);
             } else if (singular.getType() == double.class) {
-                doEquals.addStatement("return $T.compareTo(left, right) == 0", Double.class);
+                doEquals.addStatement("return $T.compare(left, right) == 0", Double.class);
             } else if (singular.getType().isPrimitive() || singular.getType().isEnum()) {
                 doEquals.addStatement("return left == right");
             } else {
                 doEquals.addStatement("return $T.equals(left, right)", Objects.class);
             }
         } else {
+            List<CodeBlock> blocks = new ArrayList<>();
             singular.getProperties().forEach((name, property) -> {
+                CodeBlock.Builder block = CodeBlock.builder();
                 Class<?> target = property.getDescription().getType();
                 CodeBlock left = accessResolver.getter(
                     singular.getType(), target, property.getName(), property.getCardinality(),
@@ -1164,17 +1429,17 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
                 );
                 if (property.getDescription().isLeaf()) {
                     if (target == float.class) {
-                        doEquals.beginControlFlow("if ($T.compareTo($L, $L) != 0)", Float.class, left, right);
+                        block.beginControlFlow("if ($T.compare($L, $L) != 0)", Float.class, left, right);
                     } else if (target == double.class) {
-                        doEquals.beginControlFlow("if ($T.compareTo($L, $L) != 0)", Double.class, left, right);
+                        block.beginControlFlow("if ($T.compare($L, $L) != 0)", Double.class, left, right);
                     } else if (target.isPrimitive() || target.isEnum() && property.getCardinality() != Cardinality.LIST) {
-                        doEquals.beginControlFlow("if ($L != $L)", left, right);
+                        block.beginControlFlow("if ($L != $L)", left, right);
                     } else {
-                        doEquals.beginControlFlow("if (!$T.equals($L, $L))", Objects.class, left, right);
+                        block.beginControlFlow("if (!$T.equals($L, $L))", Objects.class, left, right);
                     }
                 } else {
                     if (property.getCardinality() == Cardinality.LIST) {
-                        doEquals.beginControlFlow(
+                        block.beginControlFlow(
                             "if ($L.size() != $L.size() || $T.range(0, $L.size()).anyMatch("
                                 + "index -> !$T.equals($L.get(index), $L.get(index), checked)))",
                             left, right, IntStream.class, left,
@@ -1182,16 +1447,35 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
                             left, right
                         );
                     } else {
-                        doEquals.beginControlFlow(
+                        block.beginControlFlow(
                             "if (!$T.equals($L, $L, checked))",
                             nameResolver.projection(properties.get(name).getDescription(), property.getDescription()),
                             left, right
                         );
                     }
                 }
-                doEquals.addStatement("return false").endControlFlow();
+                blocks.add(block.addStatement("return false").endControlFlow().build());
             });
-            doEquals.addStatement("return true");
+            doEquals.add(MethodSplitter.split(
+                builder::addMethod,
+                "doEquals",
+                TypeName.BOOLEAN,
+                Arrays.asList(
+                    ParameterSpec.builder(singular.getType(), "left").build(),
+                    ParameterSpec.builder(singular.getType(), "right").build(),
+                    ParameterSpec.builder(ParameterizedTypeName.get(
+                        ClassName.get(Map.class), ClassName.OBJECT, ParameterizedTypeName.get(Set.class, Object.class)
+                    ), "checked").build()
+                ),
+                blocks,
+                CodeBlock.builder().addStatement("return true").build(),
+                invocation -> CodeBlock.builder()
+                    .beginControlFlow("if (!$L)", invocation)
+                    .addStatement("return false")
+                    .endControlFlow()
+                    .build(),
+                methodSizeLimit
+            )).addStatement("return true");
         }
         builder.addMethod(MethodSpec.methodBuilder("doEquals")
             .addModifiers(Modifier.PROTECTED, Modifier.STATIC)
@@ -1204,7 +1488,13 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
             .addCode(doEquals.build())
             .build());
         CodeBlock.Builder equals = CodeBlock.builder();
-        if (!singular.isLeaf()) {
+        if (!recursive && !singular.isLeaf()) {
+            equals.beginControlFlow("if (left == null)")
+                .addStatement("return right == null")
+                .nextControlFlow("else if (right == null)")
+                .addStatement("return false")
+                .endControlFlow();
+        } else if (!singular.isLeaf()) {
             equals.beginControlFlow("if (left == null)")
                 .addStatement("return right == null")
                 .nextControlFlow("else if (right == null)")
@@ -1273,19 +1563,21 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
             doToString.addStatement("builder.append($S + $T.class.getTypeName() + $S)", " - ", projection, ": ");
             doToString.addStatement("builder.append(value)");
         } else {
+            List<CodeBlock> blocks = new ArrayList<>();
             singular.getProperties().forEach((name, property) -> {
+                CodeBlock.Builder block = CodeBlock.builder();
                 Class<?> target = property.getDescription().getType();
                 CodeBlock value = accessResolver.getter(
                     singular.getType(), target, property.getName(), property.getCardinality(),
                     CodeBlock.builder().add("value").build()
                 );
-                doToString.addStatement("builder.append($S)", " - " + name + ": ");
+                block.addStatement("builder.append($S)", " - " + name + ": ");
                 if (property.getDescription().isLeaf()) {
-                    doToString.addStatement("builder.append($L)", value);
+                    block.addStatement("builder.append($L)", value);
                 } else {
                     if (property.getCardinality() == Cardinality.LIST) {
-                        doToString.addStatement("builder.append($S)", "[");
-                        doToString.beginControlFlow("for (int index = 0; index < $L.size(); index++)", value)
+                        block.addStatement("builder.append($S)", "[");
+                        block.beginControlFlow("for (int index = 0; index < $L.size(); index++)", value)
                             .addStatement("builder.append(index).append($S)", ": ")
                             .addStatement(
                                 "$T.toString($L.get(index), builder, checked)",
@@ -1293,16 +1585,31 @@ public class ProjectionEmitter implements BiConsumer<CompoundDescription, Map<St
                                 value
                             )
                             .endControlFlow();
-                        doToString.addStatement("builder.append($S)", "]");
+                        block.addStatement("builder.append($S)", "]");
                     } else {
-                        doToString.addStatement(
+                        block.addStatement(
                             "$T.toString($L, builder, checked)",
                             nameResolver.projection(properties.get(name).getDescription(), property.getDescription()),
                             value
                         );
                     }
                 }
+                blocks.add(block.build());
             });
+            doToString.add(MethodSplitter.split(
+                builder::addMethod,
+                "doToString",
+                TypeName.VOID,
+                Arrays.asList(
+                    ParameterSpec.builder(singular.getType(), "value").build(),
+                    ParameterSpec.builder(StringBuilder.class, "builder").build(),
+                    ParameterSpec.builder(ParameterizedTypeName.get(Set.class, Object.class), "checked").build()
+                ),
+                blocks,
+                CodeBlock.builder().build(),
+                invocation -> CodeBlock.builder().addStatement("$L", invocation).build(),
+                methodSizeLimit
+            ));
         }
         builder.addMethod(MethodSpec.methodBuilder("doToString")
             .addModifiers(Modifier.PROTECTED, Modifier.STATIC)
@@ -10,6 +10,7 @@ import javax.lang.model.element.Modifier;
 
 import com.squareup.javapoet.*;
 
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api.CopyContext;
 import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api.ProjectionTypeException;
 import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api.PropertyDefinition;
 import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api.Trial;
@@ -19,7 +20,7 @@ import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generator
 
 public interface PropertyResolver {
 
-    String MASKED = "value";
+    String MASKED = "value", ABSENT = "absent";
 
     String accessor(ClassName structure, String name, PropertyGeneration sort);
 
@@ -52,6 +53,28 @@ public interface PropertyResolver {
             ).build()).build();
     }
 
+    default MethodSpec.Builder nullable(
+        ClassName structure, String name, TypeName type, boolean implemented
+    ) {
+        MethodSpec.Builder builder = MethodSpec.methodBuilder(accessor(structure, name, PropertyGeneration.NULLABLE))
+            .returns(type);
+        if (type.isPrimitive()) {
+            builder.addParameter(type, ABSENT);
+        }
+        if (implemented) {
+            return builder.addModifiers(Modifier.PUBLIC).addAnnotation(Override.class);
+        } else if (type.isPrimitive()) {
+            return builder.addModifiers(Modifier.PUBLIC, Modifier.DEFAULT).addCode(CodeBlock.builder()
+                .addStatement("$T value = this.$N()", type.box(), accessor(structure, name, PropertyGeneration.NULLABLE))
+                .addStatement("return value == null ? $N : value", ABSENT)
+                .build());
+        } else {
+            return builder.addModifiers(Modifier.PUBLIC, Modifier.DEFAULT).addCode(CodeBlock.builder()
+                .addStatement("return this.$N().orElse(null)", accessor(structure, name, PropertyGeneration.GETTER))
+                .build());
+        }
+    }
+
     default MethodSpec.Builder setter(
         ClassName structure, String name, TypeName type,
         boolean implemented, boolean declared
@@ -297,7 +320,7 @@ public interface PropertyResolver {
     }
 
     default MethodSpec copyOf(
-        ClassName structure, ClassName superType, CodeBlock value
+        ClassName structure, ClassName superType, CodeBlock value, boolean deferred
     ) {
         CodeBlock.Builder code;
         if (value == null) {
@@ -314,6 +337,19 @@ public interface PropertyResolver {
                 .endControlFlow()
                 .addStatement("$T copy = $L", structure, value)
                 .addStatement("copies.put(original, copy)");
+            if (deferred) {
+                code.beginControlFlow("if (copies instanceof $T)", CopyContext.class)
+                    .add("(($T) copies).defer(() -> {\n", CopyContext.class)
+                    .indent();
+                if (superType != null) {
+                    code.addStatement("$T.copyOf(original, copy, copies)", superType);
+                }
+                code.addStatement("copyOf(original, copy, copies)")
+                    .unindent()
+                    .addStatement("})")
+                    .addStatement("return copy")
+                    .endControlFlow();
+            }
             if (superType != null) {
                 code.addStatement("$T.copyOf(original, copy, copies)", superType);
             }
@@ -328,16 +364,18 @@ public interface PropertyResolver {
             .build();
     }
 
-    default MethodSpec copyOf(
+    default List<MethodSpec> copyOf(
         ClassName structure,
         List<String> names,
         Predicate<String> terminals,
         Function<String, Cardinality> cardinalities,
         Function<String, TypeName> types,
-        BiFunction<String, String, CodeBlock> copy
+        BiFunction<String, String, CodeBlock> copy,
+        int methodSizeLimit
     ) {
-        CodeBlock.Builder code = CodeBlock.builder();
+        List<CodeBlock> blocks = new ArrayList<>();
         names.stream().filter(entry -> !entry.isEmpty()).forEach(name -> {
+            CodeBlock.Builder code = CodeBlock.builder();
             if (terminals.test(name)) {
                 switch (cardinalities.apply(name)) {
                     case SINGLE:
@@ -413,14 +451,30 @@ public interface PropertyResolver {
                         throw new IllegalStateException();
                 }
             }
+            blocks.add(code.build());
         });
-        return MethodSpec.methodBuilder("copyOf")
+        List<MethodSpec> methods = new ArrayList<>();
+        methods.add(MethodSpec.methodBuilder("copyOf")
             .addModifiers(Modifier.PROTECTED, Modifier.STATIC)
             .returns(void.class)
             .addParameter(structure, "original")
             .addParameter(structure, "copy")
             .addParameter(ParameterizedTypeName.get(Map.class, Object.class, Object.class), "copies")
-            .addCode(code.build())
-            .build();
+            .addCode(MethodSplitter.split(
+                methods::add,
+                "copyOf",
+                TypeName.VOID,
+                Arrays.asList(
+                    ParameterSpec.builder(structure, "original").build(),
+                    ParameterSpec.builder(structure, "copy").build(),
+                    ParameterSpec.builder(ParameterizedTypeName.get(Map.class, Object.class, Object.class), "copies").build()
+                ),
+                blocks,
+                CodeBlock.builder().build(),
+                invocation -> CodeBlock.builder().addStatement("$L", invocation).build(),
+                methodSizeLimit
+            ))
+            .build());
+        return methods;
     }
 }
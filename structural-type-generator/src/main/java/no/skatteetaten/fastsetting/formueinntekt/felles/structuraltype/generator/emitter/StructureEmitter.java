@@ -16,12 +16,18 @@ import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.util.*;
 import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 public class StructureEmitter implements BiConsumer<CompoundDescription, Map<String, CompoundDescription.Property>> {
 
+    private static final String DISPATCH = "Dispatch";
+
     private final Set<PropertyGeneration> propertyGenerations;
 
     private final Set<FeatureGeneration> featureGenerations;
@@ -32,8 +38,20 @@ public class StructureEmitter implements BiConsumer<CompoundDescription, Map<Str
 
     private final PropertyResolver propertyResolver;
 
+    private final Predicate<CompoundDescription> recursion;
+
     private final Map<ClassName, List<Class<?>>> interfaces;
 
+    private final boolean iterativeCopies;
+
+    private final boolean typeDispatch;
+
+    private final Predicate<CompoundDescription> serializable;
+
+    private final JacksonEmitter jacksonEmitter;
+
+    private final MapProjectionEmitter mapProjectionEmitter;
+
     private final BiConsumer<ClassName, JavaFile> consumer;
 
     public StructureEmitter(
@@ -42,7 +60,13 @@ public class StructureEmitter implements BiConsumer<CompoundDescription, Map<Str
         Set<ImplementationGeneration> implementationGenerations,
         NameResolver nameResolver,
         PropertyResolver propertyResolver,
+        Predicate<CompoundDescription> recursion,
         Map<ClassName, List<Class<?>>> interfaces,
+        boolean iterativeCopies,
+        boolean typeDispatch,
+        Predicate<CompoundDescription> serializable,
+        JacksonEmitter jacksonEmitter,
+        MapProjectionEmitter mapProjectionEmitter,
         BiConsumer<ClassName, JavaFile> consumer
     ) {
         this.propertyGenerations = propertyGenerations;
@@ -50,13 +74,23 @@ public class StructureEmitter implements BiConsumer<CompoundDescription, Map<Str
         this.implementationGenerations = implementationGenerations;
         this.nameResolver = nameResolver;
         this.propertyResolver = propertyResolver;
+        this.recursion = recursion;
         this.interfaces = interfaces;
+        this.iterativeCopies = iterativeCopies;
+        this.typeDispatch = typeDispatch;
+        this.serializable = serializable;
+        this.jacksonEmitter = jacksonEmitter;
+        this.mapProjectionEmitter = mapProjectionEmitter;
         this.consumer = consumer;
     }
 
     @Override
     public void accept(CompoundDescription compound, Map<String, CompoundDescription.Property> properties) {
         ClassName structure = nameResolver.structure(compound);
+        ClassName dispatch = structure.nestedClass(DISPATCH);
+        TypeSpec.Builder dispatcher = TypeSpec.classBuilder(dispatch)
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+            .addMethod(MethodSpec.constructorBuilder().addModifiers(Modifier.PRIVATE).build());
         TypeSpec.Builder builder = TypeSpec.interfaceBuilder(structure)
             .addModifiers(Modifier.PUBLIC)
             .addAnnotation(AnnotationSpec.builder(CompoundOf.class).addMember(
@@ -161,11 +195,63 @@ public class StructureEmitter implements BiConsumer<CompoundDescription, Map<Str
                     ofAny.unindent().addStatement("})").unindent();
                     ofType.unindent().addStatement("})").unindent();
                 }
+                CodeBlock ofAnyCode = ofAny.build(), ofTypeCode = ofType.build();
+                List<Map.Entry<CompoundDescription, SingularDescription>> candidates = new ArrayList<>();
+                toCandidates(compound, candidates);
+                if (typeDispatch && candidates.size() > 1) {
+                    TypeName function = ParameterizedTypeName.get(ClassName.get(Function.class), TypeName.OBJECT, structure);
+                    CodeBlock.Builder initializer = CodeBlock.builder().add(
+                        "$T.<$T>builder(false, value -> null)",
+                        TypeDispatcher.class, function
+                    ).indent();
+                    candidates.forEach(candidate -> initializer.add(
+                        "\n.with($T.class, value -> $T.of(($T) value))",
+                        candidate.getValue().getBoxedType(),
+                        nameResolver.structure(candidate.getKey()),
+                        candidate.getValue().getBoxedType()
+                    ));
+                    dispatcher.addField(FieldSpec.builder(
+                        ParameterizedTypeName.get(ClassName.get(TypeDispatcher.class), function),
+                        "OF_ANY",
+                        Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL
+                    ).initializer(initializer.add("\n.build()").unindent().build()).build());
+                    ofAnyCode = CodeBlock.builder()
+                        .beginControlFlow("if (value == null)")
+                        .addStatement("throw new $T()", NullPointerException.class)
+                        .endControlFlow()
+                        .addStatement("return $T.ofNullable($T.OF_ANY.get(value.getClass()).apply(value))", Optional.class, dispatch)
+                        .build();
+                }
+                candidates.removeIf(candidate -> candidate.getValue().isLeaf()
+                    || java.lang.reflect.Modifier.isAbstract(candidate.getValue().getType().getModifiers()));
+                if (typeDispatch && candidates.size() > 1) {
+                    TypeName supplier = ParameterizedTypeName.get(ClassName.get(Supplier.class), structure);
+                    CodeBlock.Builder initializer = CodeBlock.builder().add(
+                        "$T.<$T>builder(true, () -> null)",
+                        TypeDispatcher.class, supplier
+                    ).indent();
+                    candidates.forEach(candidate -> initializer.add(
+                        "\n.with($T.class, $T::new)",
+                        candidate.getValue().getBoxedType(),
+                        nameResolver.projection(candidate.getKey(), candidate.getValue())
+                    ));
+                    dispatcher.addField(FieldSpec.builder(
+                        ParameterizedTypeName.get(ClassName.get(TypeDispatcher.class), supplier),
+                        "OF_TYPE",
+                        Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL
+                    ).initializer(initializer.add("\n.build()").unindent().build()).build());
+                    ofTypeCode = CodeBlock.builder()
+                        .beginControlFlow("if (type == null)")
+                        .addStatement("throw new $T()", NullPointerException.class)
+                        .endControlFlow()
+                        .addStatement("return $T.ofNullable($T.OF_TYPE.get(type).get())", Optional.class, dispatch)
+                        .build();
+                }
                 builder.addMethod(MethodSpec.methodBuilder("ofAny")
                     .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
                     .returns(ParameterizedTypeName.get(ClassName.get(Optional.class), structure))
                     .addParameter(Object.class, "value")
-                    .addCode(ofAny.build())
+                    .addCode(ofAnyCode)
                     .build());
                 builder.addMethod(MethodSpec.methodBuilder("ofType")
                     .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
@@ -174,7 +260,7 @@ public class StructureEmitter implements BiConsumer<CompoundDescription, Map<Str
                         ClassName.get(Class.class),
                         WildcardTypeName.subtypeOf(Object.class)
                     ), "type")
-                    .addCode(ofType.build())
+                    .addCode(ofTypeCode)
                     .build());
             }
         }
@@ -194,19 +280,52 @@ public class StructureEmitter implements BiConsumer<CompoundDescription, Map<Str
                     .addParameter(ParameterizedTypeName.get(
                         ClassName.get(Class.class), WildcardTypeName.subtypeOf(TypeName.OBJECT)
                     ), "target")
-                    .addCode(CodeBlock.builder().addStatement(
+                    .addCode(iterativeCopies ? CodeBlock.builder()
+                        .addStatement("$T copies = new $T($L)", CopyContext.class, CopyContext.class, recursion.test(compound))
+                        .addStatement(
+                            "$T copy = this.copyTo(target, copies)",
+                            ParameterizedTypeName.get(ClassName.get(Optional.class), WildcardTypeName.subtypeOf(structure))
+                        )
+                        .addStatement("copies.complete()")
+                        .addStatement("return copy")
+                        .build() : CodeBlock.builder().addStatement(
                         "return this.copyTo(target, new $T<>())",
                         IdentityHashMap.class
                     ).build()).build());
                 CodeBlock.Builder code = CodeBlock.builder()
                     .beginControlFlow("if (target == null)")
                     .addStatement("throw new $T()", NullPointerException.class);
-                compound.getSingulars().forEach(singular -> code
-                    .nextControlFlow("else if (target == $T.class)", singular.getType())
-                    .addStatement(
-                        "return $T.$L($T.copyOf(this, copies))",
+                if (typeDispatch && compound.getSingulars().size() > 1) {
+                    TypeName function = ParameterizedTypeName.get(
+                        ClassName.get(BiFunction.class),
+                        structure,
+                        ParameterizedTypeName.get(Map.class, Object.class, Object.class),
+                        ParameterizedTypeName.get(ClassName.get(Optional.class), WildcardTypeName.subtypeOf(structure))
+                    );
+                    CodeBlock.Builder initializer = CodeBlock.builder().add(
+                        "$T.<$T>builder(true, (value, copies) -> $T.empty())",
+                        TypeDispatcher.class, function, Optional.class
+                    ).indent();
+                    compound.getSingulars().forEach(singular -> initializer.add(
+                        "\n.with($T.class, (value, copies) -> $T.$L($T.copyOf(value, copies)))",
+                        singular.getType(),
                         Optional.class, singular.isLeaf() ? "ofNullable" : "of", nameResolver.projection(compound, singular)
                     ));
+                    dispatcher.addField(FieldSpec.builder(
+                        ParameterizedTypeName.get(ClassName.get(TypeDispatcher.class), function),
+                        "COPY_TO",
+                        Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL
+                    ).initializer(initializer.add("\n.build()").unindent().build()).build());
+                    code.nextControlFlow("else").addStatement("return $T.COPY_TO.get(target).apply(this, copies)", dispatch);
+                } else {
+                    compound.getSingulars().forEach(singular -> code
+                        .nextControlFlow("else if (target == $T.class)", singular.getType())
+                        .addStatement(
+                            "return $T.$L($T.copyOf(this, copies))",
+                            Optional.class, singular.isLeaf() ? "ofNullable" : "of", nameResolver.projection(compound, singular)
+                        ));
+                    code.nextControlFlow("else").addStatement("return $T.empty()", Optional.class);
+                }
                 builder.addMethod(MethodSpec.methodBuilder("copyTo")
                     .addModifiers(Modifier.PUBLIC, Modifier.DEFAULT)
                     .addAnnotations(compound.getSuperDescription().isPresent()
@@ -217,10 +336,7 @@ public class StructureEmitter implements BiConsumer<CompoundDescription, Map<Str
                     ), "target")
                     .addParameter(ParameterizedTypeName.get(Map.class, Object.class, Object.class), "copies")
                     .returns(ParameterizedTypeName.get(ClassName.get(Optional.class), WildcardTypeName.subtypeOf(structure)))
-                    .addCode(code.nextControlFlow("else")
-                        .addStatement("return $T.empty()", Optional.class)
-                        .endControlFlow()
-                        .build())
+                    .addCode(code.endControlFlow().build())
                     .build());
             }
             if (implementationGenerations.contains(ImplementationGeneration.TEMPLATE)) {
@@ -230,7 +346,12 @@ public class StructureEmitter implements BiConsumer<CompoundDescription, Map<Str
                         ? Collections.singleton(AnnotationSpec.builder(Override.class).build())
                         : Collections.emptySet())
                     .returns(structure)
-                    .addCode(CodeBlock.builder().addStatement(
+                    .addCode(iterativeCopies ? CodeBlock.builder()
+                        .addStatement("$T copies = new $T($L)", CopyContext.class, CopyContext.class, recursion.test(compound))
+                        .addStatement("$T copy = this.copyToTemplate(copies)", structure)
+                        .addStatement("copies.complete()")
+                        .addStatement("return copy")
+                        .build() : CodeBlock.builder().addStatement(
                         "return this.copyToTemplate(new $T<>())",
                         IdentityHashMap.class
                     ).build()).build());
@@ -296,6 +417,27 @@ public class StructureEmitter implements BiConsumer<CompoundDescription, Map<Str
             }
             addInterface(builder, structure, type);
         });
+        TypeSpec dispatching = dispatcher.build();
+        if (!dispatching.fieldSpecs.isEmpty()) {
+            builder.addType(dispatching);
+        }
+        if (serializable.test(compound)) {
+            builder.addType(jacksonEmitter.serializer(compound, properties));
+            builder.addType(jacksonEmitter.deserializer(compound, properties));
+        }
+        if (mapProjectionEmitter.isMappable(compound)) {
+            builder.addType(mapProjectionEmitter.projection(compound, properties));
+            if (featureGenerations.contains(FeatureGeneration.FACTORY_ON_STRUCTURE)) {
+                builder.addMethod(MethodSpec.methodBuilder("ofMap")
+                    .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                    .returns(structure)
+                    .addParameter(ParameterizedTypeName.get(Map.class, String.class, Object.class), "map")
+                    .addCode(CodeBlock.builder()
+                        .addStatement("return new $T(map)", structure.nestedClass(MapProjectionEmitter.MAP_PROJECTION))
+                        .build())
+                    .build());
+            }
+        }
         consumer.accept(structure, JavaFile.builder(
             structure.packageName(),
             builder.alwaysQualify(
@@ -321,6 +463,15 @@ public class StructureEmitter implements BiConsumer<CompoundDescription, Map<Str
             }
             builder.addMethod(propertyResolver.assume(structure, name, type));
         }
+        if (cardinality == Cardinality.OPTIONAL && propertyGenerations.contains(PropertyGeneration.NULLABLE)) {
+            if (!propertyGenerations.contains(PropertyGeneration.GETTER)) {
+                throw new IllegalStateException("Cannot generate nullable getters without the getter feature enabled");
+            }
+            builder.addMethod(propertyResolver.nullable(structure, name, type, false).build());
+            if (type.isBoxedPrimitive()) {
+                builder.addMethod(propertyResolver.nullable(structure, name, type.unbox(), false).build());
+            }
+        }
         if (!name.isEmpty()) {
             if (propertyGenerations.contains(PropertyGeneration.SETTER)) {
                 builder.addMethod(propertyResolver.setter(structure, name, type, false, false).build());
@@ -479,6 +630,11 @@ public class StructureEmitter implements BiConsumer<CompoundDescription, Map<Str
         }
     }
 
+    private void toCandidates(CompoundDescription compound, List<Map.Entry<CompoundDescription, SingularDescription>> candidates) {
+        compound.getSubDescriptions().forEach(subDescription -> toCandidates(subDescription, candidates));
+        compound.getSingulars().forEach(singular -> candidates.add(Map.entry(compound, singular)));
+    }
+
     private void addHashCode(TypeSpec.Builder builder) {
         builder.addMethod(MethodSpec.methodBuilder("hashCode")
             .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
@@ -10,6 +10,7 @@ import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generator
 import javax.lang.model.element.Modifier;
 import java.util.*;
 import java.util.function.BiConsumer;
+import java.util.function.Predicate;
 import java.util.stream.IntStream;
 
 public class TemplateEmitter implements BiConsumer<CompoundDescription, Map<String, CompoundDescription.Property>> {
@@ -18,6 +19,11 @@ public class TemplateEmitter implements BiConsumer<CompoundDescription, Map<Stri
     private final Set<FeatureGeneration> featureGenerations;
     private final NameResolver nameResolver;
     private final PropertyResolver propertyResolver;
+    private final Predicate<CompoundDescription> recursion;
+    private final boolean primitives;
+    private final boolean iterativeCopies;
+    private final int methodSizeLimit;
+    private final boolean finalClasses;
     private final BiConsumer<ClassName, JavaFile> consumer;
 
     public TemplateEmitter(
@@ -25,12 +31,22 @@ public class TemplateEmitter implements BiConsumer<CompoundDescription, Map<Stri
         Set<FeatureGeneration> featureGenerations,
         NameResolver nameResolver,
         PropertyResolver propertyResolver,
+        Predicate<CompoundDescription> recursion,
+        boolean primitives,
+        boolean iterativeCopies,
+        int methodSizeLimit,
+        boolean finalClasses,
         BiConsumer<ClassName, JavaFile> consumer
     ) {
         this.propertyGenerations = propertyGenerations;
         this.featureGenerations = featureGenerations;
         this.nameResolver = nameResolver;
         this.propertyResolver = propertyResolver;
+        this.recursion = recursion;
+        this.primitives = primitives;
+        this.iterativeCopies = iterativeCopies;
+        this.methodSizeLimit = methodSizeLimit;
+        this.finalClasses = finalClasses;
         this.consumer = consumer;
     }
 
@@ -45,6 +61,9 @@ public class TemplateEmitter implements BiConsumer<CompoundDescription, Map<Stri
                 .addMember("value", CodeBlock.builder().add("$T.class", structure).build())
                 .build());
         compound.getSuperDescription().ifPresent(superCompound -> builder.superclass(nameResolver.template(superCompound)));
+        if (finalClasses && compound.getSubDescriptions().isEmpty()) {
+            builder.addModifiers(Modifier.FINAL);
+        }
         if (featureGenerations.contains(FeatureGeneration.COPY)) {
             if (!propertyGenerations.containsAll(EnumSet.of(PropertyGeneration.GETTER, PropertyGeneration.SETTER))) {
                 throw new IllegalStateException("The copy feature requires getter and setter properties to be enabled");
@@ -54,8 +73,9 @@ public class TemplateEmitter implements BiConsumer<CompoundDescription, Map<Stri
                 compound.getSuperDescription().map(nameResolver::template).orElse(null),
                 (properties.containsKey(CompoundDescription.EXPANSION)
                     ? CodeBlock.builder().add("original.get().map($T::new).orElseGet($T::new)", template, template)
-                    : CodeBlock.builder().add("new $T()", template)).build()
-            )).addMethod(propertyResolver.copyOf(
+                    : CodeBlock.builder().add("new $T()", template)).build(),
+                iterativeCopies
+            )).addMethods(propertyResolver.copyOf(
                 structure,
                 new ArrayList<>(properties.keySet()),
                 name -> properties.get(name).getDescription().getSort() != CompoundDescription.Sort.BRANCH,
@@ -65,7 +85,8 @@ public class TemplateEmitter implements BiConsumer<CompoundDescription, Map<Stri
                     ignored -> nameResolver.structure(properties.get(name).getDescription()),
                     ignored -> nameResolver.structure(properties.get(name).getDescription())
                 ),
-                (name, copies) -> CodeBlock.builder().add("copyToTemplate($N)", copies).build()
+                (name, copies) -> CodeBlock.builder().add("copyToTemplate($N)", copies).build(),
+                methodSizeLimit
             ));
             builder.addMethod(MethodSpec.methodBuilder("copy")
                 .addModifiers(Modifier.PUBLIC)
@@ -81,29 +102,44 @@ public class TemplateEmitter implements BiConsumer<CompoundDescription, Map<Stri
                 .addAnnotation(Override.class)
                 .addCode(CodeBlock.builder().addStatement("return $T.empty()", Optional.class).build()).build());
         }
+        Map<String, Integer> presences = new HashMap<>();
+        if (primitives) {
+            properties.forEach((name, property) -> property.accept((cardinality, type) -> {
+                if (isPrimitive(name, cardinality, type)) {
+                    presences.put(name, presences.size());
+                }
+            }, (cardinality, ignored) -> {
+            }, (cardinality, ignored) -> {
+            }));
+            for (int index = 0; index < presences.size(); index += Long.SIZE) {
+                builder.addField(FieldSpec.builder(long.class, toPresence(index, properties.keySet()))
+                    .addModifiers(Modifier.PRIVATE)
+                    .build());
+            }
+        }
         properties.forEach((name, property) -> property.accept((cardinality, type) -> addProperty(
             builder, structure, property.getDescription(), false,
-            name, cardinality, TypeName.get(type), null, properties.keySet()
+            name, cardinality, TypeName.get(type), null, presences.get(name), properties.keySet()
         ), (cardinality, ignored) -> addProperty(
             builder, structure, property.getDescription(), false,
-            name, cardinality, nameResolver.structure(property.getDescription()), null, properties.keySet()
+            name, cardinality, nameResolver.structure(property.getDescription()), null, null, properties.keySet()
         ), (cardinality, nested) -> addProperty(
             builder, structure, property.getDescription(), true,
             name, cardinality, nameResolver.structure(property.getDescription()),
-            nested.get(CompoundDescription.EXPANSION), properties.keySet()
+            nested.get(CompoundDescription.EXPANSION), null, properties.keySet()
         )));
         if (featureGenerations.contains(FeatureGeneration.HASHCODE_EQUALS)) {
             addHashCode(builder, template, compound.getSuperDescription()
                 .map(nameResolver::template)
-                .orElse(null), properties);
+                .orElse(null), recursion.test(compound), properties, presences);
             addEquals(builder, template, compound.getSuperDescription()
                 .map(nameResolver::template)
-                .orElse(null), properties);
+                .orElse(null), recursion.test(compound), properties, presences);
         }
         if (featureGenerations.contains(FeatureGeneration.TO_STRING)) {
             addToString(builder, structure, template, compound.getSuperDescription()
                 .map(nameResolver::template)
-                .orElse(null), properties);
+                .orElse(null), properties, presences);
         }
         consumer.accept(template, JavaFile.builder(
             template.packageName(), builder.build()
@@ -123,10 +159,26 @@ public class TemplateEmitter implements BiConsumer<CompoundDescription, Map<Stri
         }
     }
 
+    private static boolean isPrimitive(String name, Cardinality cardinality, Class<?> type) {
+        return !name.isEmpty() && cardinality != Cardinality.LIST && TypeName.get(type).isBoxedPrimitive();
+    }
+
+    private static String toPresence(int index, Set<String> names) {
+        String candidate = "presence" + index / Long.SIZE;
+        while (names.contains(candidate)) {
+            candidate = "_" + candidate;
+        }
+        return candidate;
+    }
+
+    private static String toMask(int index) {
+        return "0x" + Long.toHexString(1L << index % Long.SIZE) + "L";
+    }
+
     private void addProperty(
         TypeSpec.Builder builder, ClassName structure, CompoundDescription target, boolean branch,
         String name, Cardinality cardinality, TypeName type, CompoundDescription.Property expansion,
-        Set<String> names
+        Integer presence, Set<String> names
     ) {
         String variable = toVariable(name, names);
         if (name.isEmpty()) {
@@ -146,18 +198,34 @@ public class TemplateEmitter implements BiConsumer<CompoundDescription, Map<Stri
                     .build())
                 .addCode(CodeBlock.builder().addStatement("this.$N = $N", variable, variable).build())
                 .build());
+        } else if (presence != null) {
+            builder.addField(FieldSpec.builder(type.unbox(), name)
+                .addModifiers(Modifier.PRIVATE)
+                .build());
         } else {
             builder.addField(FieldSpec.builder(cardinality.asPropertyType(type), name)
                 .addModifiers(Modifier.PRIVATE)
                 .build());
         }
+        String present = presence == null ? null : "(this." + toPresence(presence, names) + " & " + toMask(presence) + ") != 0";
         if (propertyGenerations.contains(PropertyGeneration.GETTER)) {
             CodeBlock.Builder getter;
             switch (cardinality) {
             case SINGLE:
+                if (present != null) {
+                    getter = CodeBlock.builder().addStatement("return $L ? this.$N : null", present, variable);
+                    break;
+                }
                 getter = CodeBlock.builder().addStatement("return this.$N", variable);
                 break;
             case OPTIONAL:
+                if (present != null) {
+                    getter = CodeBlock.builder().addStatement(
+                        "return $L ? $T.of(this.$N) : $T.empty()",
+                        present, Optional.class, variable, Optional.class
+                    );
+                    break;
+                }
                 getter = CodeBlock.builder().addStatement("return $T.ofNullable(this.$N)", Optional.class, variable);
                 break;
             case LIST:
@@ -178,6 +246,23 @@ public class TemplateEmitter implements BiConsumer<CompoundDescription, Map<Stri
                 .addCode(getter.build())
                 .build());
         }
+        if (present != null && cardinality == Cardinality.OPTIONAL && propertyGenerations.contains(PropertyGeneration.NULLABLE)) {
+            builder.addMethod(propertyResolver.nullable(structure, name, type, true)
+                .addStatement("return $L ? this.$N : null", present, variable)
+                .build());
+            builder.addMethod(propertyResolver.nullable(structure, name, type.unbox(), true)
+                .addStatement("return $L ? this.$N : $N", present, variable, PropertyResolver.ABSENT)
+                .build());
+        } else if (cardinality == Cardinality.OPTIONAL && propertyGenerations.contains(PropertyGeneration.NULLABLE)) {
+            builder.addMethod(propertyResolver.nullable(structure, name, type, true)
+                .addStatement("return this.$N", variable)
+                .build());
+            if (type.isBoxedPrimitive()) {
+                builder.addMethod(propertyResolver.nullable(structure, name, type.unbox(), true)
+                    .addStatement("return this.$N == null ? $N : this.$N", variable, PropertyResolver.ABSENT, variable)
+                    .build());
+            }
+        }
         if (!name.isEmpty()) {
             if (!Collections.disjoint(propertyGenerations, EnumSet.of(
                 PropertyGeneration.SETTER, PropertyGeneration.TRIAL, PropertyGeneration.FLUENT
@@ -195,7 +280,22 @@ public class TemplateEmitter implements BiConsumer<CompoundDescription, Map<Stri
                     variable, ArrayList.class
                 ).endControlFlow().addStatement(
                     "this.$N.add($N)", variable, variable
-                ).build() : CodeBlock.builder().addStatement(
+                ).build() : presence != null ? CodeBlock.builder().beginControlFlow(
+                    "if ($N == null)",
+                    variable
+                ).addStatement(
+                    "this.$N = $L",
+                    variable, type.unbox().equals(TypeName.BOOLEAN) ? "false" : "0"
+                ).addStatement(
+                    "this.$N &= ~$L",
+                    toPresence(presence, names), toMask(presence)
+                ).nextControlFlow("else").addStatement(
+                    "this.$N = $N",
+                    variable, variable
+                ).addStatement(
+                    "this.$N |= $L",
+                    toPresence(presence, names), toMask(presence)
+                ).endControlFlow().build() : CodeBlock.builder().addStatement(
                     "this.$N = $N",
                     variable, variable
                 ).build()).build());
@@ -308,38 +408,53 @@ public class TemplateEmitter implements BiConsumer<CompoundDescription, Map<Stri
         TypeSpec.Builder builder,
         ClassName template,
         ClassName base,
-        Map<String, CompoundDescription.Property> properties
+        boolean recursive,
+        Map<String, CompoundDescription.Property> properties,
+        Map<String, Integer> presences
     ) {
         if (base == null) {
             builder.addMethod(MethodSpec.methodBuilder("hashCode")
                 .addModifiers(Modifier.PUBLIC)
                 .returns(int.class)
                 .addAnnotation(Override.class)
-                .addCode(CodeBlock.builder().addStatement(
+                .addCode(recursive ? CodeBlock.builder().addStatement(
                     "return this.hashCode($T.newSetFromMap(new $T<>()))",
                     Collections.class, IdentityHashMap.class
+                ).build() : CodeBlock.builder().addStatement(
+                    "return this.hashCode($T.emptySet())",
+                    Collections.class
                 ).build())
                 .build());
         }
         CodeBlock.Builder doHashCode = CodeBlock.builder().addStatement("int hashCode = 0");
+        List<CodeBlock> blocks = new ArrayList<>();
         properties.forEach((name, property) -> {
+            CodeBlock.Builder block = CodeBlock.builder();
             String variable = toVariable(name, properties.keySet());
             property.accept((cardinality, type) -> {
-                if (type.isPrimitive()) {
-                    doHashCode.addStatement(
+                if (presences.containsKey(name)) {
+                    block.beginControlFlow(
+                        "if ((value.$N & $L) != 0)",
+                        toPresence(presences.get(name), properties.keySet()), toMask(presences.get(name))
+                    ).addStatement(
+                        "hashCode = hashCode + $T.hashCode(value.$N)",
+                        TypeName.get(type), variable
+                    ).endControlFlow();
+                } else if (type.isPrimitive()) {
+                    block.addStatement(
                         "hashCode = hashCode + $T.hashCode(value.$N)",
                         TypeName.get(type).box(), variable
                     );
                 } else {
-                    doHashCode.beginControlFlow("if (value.$N != null)", variable)
+                    block.beginControlFlow("if (value.$N != null)", variable)
                         .addStatement("hashCode = hashCode + value.$N.hashCode()", variable)
                         .endControlFlow();
                 }
-            }, (cardinality, ignored) -> doHashCode.beginControlFlow(
+            }, (cardinality, ignored) -> block.beginControlFlow(
                 "if (value.$N != null)", variable
             ).addStatement("hashCode = 31 * value.$N.hashCode()", variable).endControlFlow(), (cardinality, ignored) -> {
                 if (cardinality == Cardinality.LIST) {
-                    doHashCode.beginControlFlow("if (value.$N != null)", variable)
+                    block.beginControlFlow("if (value.$N != null)", variable)
                         .addStatement("hashCode = 31 * hashCode")
                         .beginControlFlow("for (int index = 0; index < value.$N.size(); index++)", variable)
                         .addStatement(
@@ -349,13 +464,27 @@ public class TemplateEmitter implements BiConsumer<CompoundDescription, Map<Stri
                         .endControlFlow()
                         .endControlFlow();
                 } else {
-                    doHashCode.beginControlFlow("if (value.$N != null)", variable)
+                    block.beginControlFlow("if (value.$N != null)", variable)
                         .addStatement("hashCode = 31 * hashCode + value.$N.hashCode(checked)", variable)
                         .endControlFlow();
                 }
             });
-            doHashCode.addStatement("hashCode = 31 * hashCode");
+            blocks.add(block.addStatement("hashCode = 31 * hashCode").build());
         });
+        doHashCode.add(MethodSplitter.split(
+            builder::addMethod,
+            "doHashCode",
+            TypeName.INT,
+            Arrays.asList(
+                ParameterSpec.builder(template, "value").build(),
+                ParameterSpec.builder(ParameterizedTypeName.get(Set.class, Object.class), "checked").build(),
+                ParameterSpec.builder(int.class, "hashCode").build()
+            ),
+            blocks,
+            CodeBlock.builder().addStatement("return hashCode").build(),
+            invocation -> CodeBlock.builder().addStatement("hashCode = $L", invocation).build(),
+            methodSizeLimit
+        ));
         builder.addMethod(MethodSpec.methodBuilder("doHashCode")
             .addModifiers(Modifier.PROTECTED, Modifier.STATIC)
             .returns(int.class)
@@ -363,11 +492,13 @@ public class TemplateEmitter implements BiConsumer<CompoundDescription, Map<Stri
             .addParameter(ParameterizedTypeName.get(Set.class, Object.class), "checked")
             .addCode(doHashCode.addStatement("return hashCode").build())
             .build());
-        CodeBlock.Builder hashCode = CodeBlock.builder()
-            .beginControlFlow("if (!checked.add(this))")
-            .addStatement("return 0")
-            .endControlFlow()
-            .addStatement("$T hashCode = $T.class.hashCode()", int.class, template);
+        CodeBlock.Builder hashCode = CodeBlock.builder();
+        if (recursive) {
+            hashCode.beginControlFlow("if (!checked.add(this))")
+                .addStatement("return 0")
+                .endControlFlow();
+        }
+        hashCode.addStatement("$T hashCode = $T.class.hashCode()", int.class, template);
         if (base != null) {
             hashCode.addStatement("hashCode = hashCode + 31 * $T.doHashCode(this, checked)", base);
         }
@@ -385,7 +516,9 @@ public class TemplateEmitter implements BiConsumer<CompoundDescription, Map<Stri
         TypeSpec.Builder builder,
         ClassName template,
         ClassName base,
-        Map<String, CompoundDescription.Property> properties
+        boolean recursive,
+        Map<String, CompoundDescription.Property> properties,
+        Map<String, Integer> presences
     ) {
         if (base == null) {
             builder.addMethod(MethodSpec.methodBuilder("equals")
@@ -393,24 +526,48 @@ public class TemplateEmitter implements BiConsumer<CompoundDescription, Map<Stri
                 .returns(boolean.class)
                 .addParameter(Object.class, "other")
                 .addAnnotation(Override.class)
-                .addCode(CodeBlock.builder().addStatement(
+                .addCode(recursive ? CodeBlock.builder().addStatement(
                     "return this.equals(other, new $T<>())",
                     IdentityHashMap.class
+                ).build() : CodeBlock.builder().addStatement(
+                    "return this.equals(other, $T.emptyMap())",
+                    Collections.class
                 ).build())
                 .build());
         }
         CodeBlock.Builder doEquals = CodeBlock.builder();
+        List<CodeBlock> blocks = new ArrayList<>();
         properties.forEach((name, property) -> {
+            CodeBlock.Builder block = CodeBlock.builder();
             String variable = toVariable(name, properties.keySet());
             property.accept((cardinality, type) -> {
-                if (type == float.class) {
-                    doEquals.beginControlFlow("if ($T.compareTo(left.$N, right.$N) != 0)", Float.class, variable, variable);
+                if (presences.containsKey(name)) {
+                    String presence = toPresence(presences.get(name), properties.keySet());
+                    String mask = toMask(presences.get(name));
+                    TypeName primitive = TypeName.get(type).unbox();
+                    if (primitive.equals(TypeName.FLOAT) || primitive.equals(TypeName.DOUBLE)) {
+                        block.beginControlFlow(
+                            "if ((left.$N & $L) != (right.$N & $L) "
+                                + "|| (left.$N & $L) != 0 && $T.compare(left.$N, right.$N) != 0)",
+                            presence, mask, presence, mask,
+                            presence, mask, type, variable, variable
+                        );
+                    } else {
+                        block.beginControlFlow(
+                            "if ((left.$N & $L) != (right.$N & $L) "
+                                + "|| (left.$N & $L) != 0 && left.$N != right.$N)",
+                            presence, mask, presence, mask,
+                            presence, mask, variable, variable
+                        );
+                    }
+                } else if (type == float.class) {
+                    block.beginControlFlow("if ($T.compare(left.$N, right.$N) != 0)", Float.class, variable, variable);
                 } else if (type == double.class) {
-                    doEquals.beginControlFlow("if ($T.compareTo(left.$N, right.$N) != 0)", Float.class, variable, variable);
+                    block.beginControlFlow("if ($T.compare(left.$N, right.$N) != 0)", Double.class, variable, variable);
                 } else if (type.isPrimitive()) {
-                    doEquals.beginControlFlow("if (left.$N != right.$N)", variable, variable);
+                    block.beginControlFlow("if (left.$N != right.$N)", variable, variable);
                 } else if (cardinality == Cardinality.LIST) {
-                    doEquals.beginControlFlow(
+                    block.beginControlFlow(
                         "if (left.$N == null && right.$N != null && !right.$N.isEmpty() "
                             + "|| left.$N != null && right.$N == null && !left.$N.isEmpty() "
                             + "|| left.$N != null && right.$N != null && !left.$N.equals(right.$N))",
@@ -419,11 +576,11 @@ public class TemplateEmitter implements BiConsumer<CompoundDescription, Map<Stri
                         variable, variable, variable, variable
                     );
                 } else {
-                    doEquals.beginControlFlow("if (!$T.equals(left.$N, right.$N))", Objects.class, variable, variable);
+                    block.beginControlFlow("if (!$T.equals(left.$N, right.$N))", Objects.class, variable, variable);
                 }
             }, (cardinality, ignored) -> {
                 if (cardinality == Cardinality.LIST) {
-                    doEquals.beginControlFlow(
+                    block.beginControlFlow(
                         "if (left.$N == null && right.$N != null && !right.$N.isEmpty() "
                             + "|| left.$N != null && right.$N == null && !left.$N.isEmpty() "
                             + "|| left.$N != null && right.$N != null && !left.$N.equals(right.$N))",
@@ -432,11 +589,11 @@ public class TemplateEmitter implements BiConsumer<CompoundDescription, Map<Stri
                         variable, variable, variable, variable
                     );
                 } else {
-                    doEquals.beginControlFlow("if (left.$N != right.$N)", variable, variable);
+                    block.beginControlFlow("if (left.$N != right.$N)", variable, variable);
                 }
             }, (cardinality, ignored) -> {
                 if (cardinality == Cardinality.LIST) {
-                    doEquals.beginControlFlow(
+                    block.beginControlFlow(
                         "if (left.$N == null && right.$N != null && !right.$N.isEmpty() "
                             + "|| left.$N != null && right.$N == null && !left.$N.isEmpty() "
                             + "|| left.$N != null && right.$N != null && (left.$N.size() != right.$N.size()"
@@ -451,7 +608,7 @@ public class TemplateEmitter implements BiConsumer<CompoundDescription, Map<Stri
                         variable, variable
                     );
                 } else {
-                    doEquals.beginControlFlow(
+                    block.beginControlFlow(
                         "if (left.$N == null && right.$N != null "
                             + "|| left.$N != null && !left.$N.equals(right.$N, checked))",
                         variable, variable,
@@ -459,8 +616,28 @@ public class TemplateEmitter implements BiConsumer<CompoundDescription, Map<Stri
                     );
                 }
             });
-            doEquals.addStatement("return false").endControlFlow();
+            blocks.add(block.addStatement("return false").endControlFlow().build());
         });
+        doEquals.add(MethodSplitter.split(
+            builder::addMethod,
+            "doEquals",
+            TypeName.BOOLEAN,
+            Arrays.asList(
+                ParameterSpec.builder(template, "left").build(),
+                ParameterSpec.builder(template, "right").build(),
+                ParameterSpec.builder(ParameterizedTypeName.get(
+                    ClassName.get(Map.class), ClassName.OBJECT, ParameterizedTypeName.get(Set.class, Object.class)
+                ), "checked").build()
+            ),
+            blocks,
+            CodeBlock.builder().addStatement("return true").build(),
+            invocation -> CodeBlock.builder()
+                .beginControlFlow("if (!$L)", invocation)
+                .addStatement("return false")
+                .endControlFlow()
+                .build(),
+            methodSizeLimit
+        ));
         builder.addMethod(MethodSpec.methodBuilder("doEquals")
             .addModifiers(Modifier.PROTECTED, Modifier.STATIC)
             .returns(boolean.class)
@@ -473,16 +650,20 @@ public class TemplateEmitter implements BiConsumer<CompoundDescription, Map<Stri
             .build());
         CodeBlock.Builder equals = CodeBlock.builder()
             .beginControlFlow("if (other == null || this.getClass() != other.getClass())")
-            .addStatement("return false")
-            .nextControlFlow("if (checked.containsKey(this) && checked.get(this).contains(other))")
-            .addStatement("return true")
-            .endControlFlow()
-            .addStatement("$T current = checked.get(this)", ParameterizedTypeName.get(Set.class, Object.class))
-            .beginControlFlow("if (current == null)")
-            .addStatement("current = $T.newSetFromMap(new $T<>())", Collections.class, IdentityHashMap.class)
-            .addStatement("checked.put(this, current)")
-            .endControlFlow()
-            .addStatement("current.add(other)");
+            .addStatement("return false");
+        if (recursive) {
+            equals.nextControlFlow("if (checked.containsKey(this) && checked.get(this).contains(other))")
+                .addStatement("return true")
+                .endControlFlow()
+                .addStatement("$T current = checked.get(this)", ParameterizedTypeName.get(Set.class, Object.class))
+                .beginControlFlow("if (current == null)")
+                .addStatement("current = $T.newSetFromMap(new $T<>())", Collections.class, IdentityHashMap.class)
+                .addStatement("checked.put(this, current)")
+                .endControlFlow()
+                .addStatement("current.add(other)");
+        } else {
+            equals.endControlFlow();
+        }
         if (base != null) {
             equals.addStatement(
                 "return $T.doEquals(this, ($T) other, checked) && doEquals(this, ($T) other, checked)",
@@ -506,7 +687,8 @@ public class TemplateEmitter implements BiConsumer<CompoundDescription, Map<Stri
     private void addToString(
         TypeSpec.Builder builder,
         ClassName structure, ClassName template, ClassName base,
-        Map<String, CompoundDescription.Property> properties
+        Map<String, CompoundDescription.Property> properties,
+        Map<String, Integer> presences
     ) {
         if (base == null) {
             builder.addMethod(MethodSpec.methodBuilder("toString")
@@ -523,16 +705,27 @@ public class TemplateEmitter implements BiConsumer<CompoundDescription, Map<Stri
                 .build());
         }
         CodeBlock.Builder doToString = CodeBlock.builder();
+        List<CodeBlock> blocks = new ArrayList<>();
         properties.forEach((name, property) -> {
+            CodeBlock.Builder block = CodeBlock.builder();
             String variable = toVariable(name, properties.keySet());
-            doToString.addStatement("builder.append($S).append($S).append($S)", " - ", variable, ": ");
-            property.accept((cardinality, type) -> doToString.addStatement(
-                "builder.append(value.$N)", variable
-            ), (cardinality, ignored) -> doToString.addStatement(
+            block.addStatement("builder.append($S).append($S).append($S)", " - ", variable, ": ");
+            property.accept((cardinality, type) -> {
+                if (presences.containsKey(name)) {
+                    block.beginControlFlow(
+                        "if ((value.$N & $L) == 0)",
+                        toPresence(presences.get(name), properties.keySet()), toMask(presences.get(name))
+                    ).addStatement("builder.append($S)", "null").nextControlFlow("else").addStatement(
+                        "builder.append(value.$N)", variable
+                    ).endControlFlow();
+                } else {
+                    block.addStatement("builder.append(value.$N)", variable);
+                }
+            }, (cardinality, ignored) -> block.addStatement(
                 "builder.append(value.$N)", variable
             ), (cardinality, ignored) -> {
                 if (cardinality == Cardinality.LIST) {
-                    doToString.beginControlFlow("if (value.$N == null)", variable)
+                    block.beginControlFlow("if (value.$N == null)", variable)
                         .addStatement("builder.append($S)", "null")
                         .nextControlFlow("else")
                         .addStatement("builder.append($S)", "[")
@@ -545,10 +738,25 @@ public class TemplateEmitter implements BiConsumer<CompoundDescription, Map<Stri
                         .addStatement("builder.append($S)", "]")
                         .endControlFlow();
                 } else {
-                    doToString.addStatement("builder.append(value.$N)", variable);
+                    block.addStatement("builder.append(value.$N)", variable);
                 }
             });
+            blocks.add(block.build());
         });
+        doToString.add(MethodSplitter.split(
+            builder::addMethod,
+            "doToString",
+            TypeName.VOID,
+            Arrays.asList(
+                ParameterSpec.builder(StringBuilder.class, "builder").build(),
+                ParameterSpec.builder(template, "value").build(),
+                ParameterSpec.builder(ParameterizedTypeName.get(Set.class, Object.class), "checked").build()
+            ),
+            blocks,
+            CodeBlock.builder().build(),
+            invocation -> CodeBlock.builder().addStatement("$L", invocation).build(),
+            methodSizeLimit
+        ));
         builder.addMethod(MethodSpec.methodBuilder("doToString")
             .addModifiers(Modifier.PROTECTED, Modifier.STATIC)
             .returns(void.class)
@@ -128,10 +128,12 @@ public class SimpleTypeResolverTest {
             // java.math.BigInteger
             { BigInteger.class, BigInteger.class, BigInteger.class, BigInteger.ONE, BigInteger.ONE, BigInteger.TEN, BigInteger.TEN },
             { BigInteger.class, Number.class, Number.class, BigInteger.ONE, BigInteger.ONE, 84, 84 },
+            { BigInteger.class, Long.class, BigInteger.class, BigInteger.TEN, BigInteger.TEN, 84L, BigInteger.valueOf(84) },
             { BigInteger.class, String.class, String.class, BigInteger.ONE, "1", "foo", "foo" },
             // java.math.BigDecimal
             { BigDecimal.class, BigDecimal.class, BigDecimal.class, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.TEN, BigDecimal.TEN },
             { BigDecimal.class, Number.class, Number.class, BigDecimal.ONE, BigDecimal.ONE, 84, 84 },
+            { BigDecimal.class, Number.class, Number.class, new BigDecimal("1.50"), new BigDecimal("1.50"), 84, 84 },
             { BigDecimal.class, String.class, String.class, BigDecimal.ONE, "1", "foo", "foo" },
             // java.time.LocalTime
             { LocalTime.class, LocalTime.class, LocalTime.class, LocalTime.MIN, LocalTime.MIN, LocalTime.MAX, LocalTime.MAX },
@@ -140,6 +142,7 @@ public class SimpleTypeResolverTest {
             { LocalDate.class, LocalDate.class, LocalDate.class, LocalDate.MIN, LocalDate.MIN, LocalDate.MAX, LocalDate.MAX },
             { LocalDate.class, LocalDateTime.class, LocalDateTime.class, LocalDate.MIN, LocalDate.MIN.atStartOfDay(), LocalDateTime.MIN, LocalDateTime.MIN },
             { LocalDate.class, String.class, String.class, LocalDate.MIN, LocalDate.MIN.toString(), "foo", "foo" },
+            { LocalDate.class, String.class, String.class, LocalDate.of(2020, 2, 29), "2020-02-29", "foo", "foo" },
             // java.time.LocalDateTime
             { LocalDateTime.class, LocalDateTime.class, LocalDateTime.class, LocalDateTime.MIN, LocalDateTime.MIN, LocalDateTime.MAX, LocalDateTime.MAX },
             { LocalDateTime.class, String.class, String.class, LocalDateTime.MIN, LocalDateTime.MIN.toString(), "foo", "foo" },
@@ -4,17 +4,30 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.math.BigInteger;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api.*;
 import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generator.sample.*;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.jackson.StructuralTypeModule;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.jackson.StructuralTypeNodeProjector;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.TypeSpec;
 
 public class StructuralTypeTest {
 
@@ -4859,6 +4872,850 @@ public class StructuralTypeTest {
             .hasRootCauseMessage("foo");
     }
 
+    @Test
+    public void can_report_generation_phases() {
+        Map<GenerationPhase, Long> phases = new EnumMap<>(GenerationPhase.class);
+        new StructuralType().withPhaseListener(phases::put).make(
+            SampleEnumLeafFoo.class,
+            SampleBranchFoo.class
+        );
+
+        assertThat(phases).containsOnlyKeys(GenerationPhase.values());
+        assertThat(phases.values()).allMatch(duration -> duration >= 0);
+    }
+
+    @Test
+    public void can_emit_in_parallel() {
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            Map<ClassName, JavaFile> sequential = new StructuralType().make(
+                SampleEnumNestedLeafFoo.class,
+                SampleEnumNestedBranchFoo.class
+            ), parallel = new StructuralType().withParallelism(executorService).make(
+                SampleEnumNestedLeafFoo.class,
+                SampleEnumNestedBranchFoo.class
+            );
+
+            assertThat(parallel.keySet()).containsExactlyElementsOf(sequential.keySet());
+            sequential.forEach((name, file) -> assertThat(parallel.get(name).toString()).isEqualTo(file.toString()));
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void can_resolve_nullable_getters_of_optional_primitive() {
+        List<Class<?>> types = compiler.apply(new StructuralType().withProperties(PropertyGeneration.values()).make(
+            SampleTypedLeafPrimitive.class,
+            SampleEmpty.class
+        ));
+
+        assertThat(structureOf(types, SampleTypedLeafPrimitive.class)).hasDeclaredMethods("peekFoo");
+
+        SampleTypedLeafPrimitive primitive = new SampleTypedLeafPrimitive();
+        primitive.setFoo(42);
+        Object fooProjection = projectionInstanceOf(types, primitive);
+        assertThat(get("peekFoo", fooProjection)).isEqualTo(42);
+        assertThat(peek("peekFoo", fooProjection, int.class, -1)).isEqualTo(42);
+
+        Object emptyProjection = projectionInstanceOf(types, new SampleEmpty());
+        assertThat(get("peekFoo", emptyProjection)).isNull();
+        assertThat(peek("peekFoo", emptyProjection, int.class, -1)).isEqualTo(-1);
+
+        Object template = templateInstanceOf(types, SampleTypedLeafPrimitive.class);
+        assertThat(get("peekFoo", template)).isNull();
+        assertThat(peek("peekFoo", template, int.class, -1)).isEqualTo(-1);
+        set("setFoo", template, 42);
+        assertThat(get("peekFoo", template)).isEqualTo(42);
+        assertThat(peek("peekFoo", template, int.class, -1)).isEqualTo(42);
+    }
+
+    @Test
+    public void can_resolve_nullable_getters_of_optional_reference() {
+        List<Class<?>> types = compiler.apply(new StructuralType().withProperties(PropertyGeneration.values()).make(
+            SampleBranchFoo.class,
+            SampleEmpty.class
+        ));
+
+        SampleBranchFoo branch = new SampleBranchFoo();
+        Object branchProjection = projectionInstanceOf(types, branch);
+        assertThat(get("peekFoo", branchProjection)).isNull();
+        branch.setFoo(new SampleTypedLeafFoo());
+        branch.getFoo().setFoo("foo");
+        assertThat(get("getFoo", get("peekFoo", branchProjection))).isEqualTo("foo");
+
+        assertThat(get("peekFoo", projectionInstanceOf(types, new SampleEmpty()))).isNull();
+
+        Object template = templateInstanceOf(types, SampleBranchFoo.class);
+        assertThat(get("peekFoo", template)).isNull();
+    }
+
+    @Test
+    public void can_use_primitive_fields_in_templates() throws Exception {
+        List<Class<?>> types = compiler.apply(new StructuralType().withPrimitiveTemplates(true).withProperties(PropertyGeneration.values()).make(
+            SampleTypedLeafPrimitive.class,
+            SampleEmpty.class
+        ));
+
+        assertThat(templateOf(types, SampleTypedLeafPrimitive.class))
+            .hasOnlyDeclaredFields("foo", "presence0");
+        assertThat(templateOf(types, SampleTypedLeafPrimitive.class).getDeclaredField("foo").getType())
+            .isEqualTo(int.class);
+
+        Object template = templateInstanceOf(types, SampleTypedLeafPrimitive.class);
+        assertThat(getOptional("getFoo", template)).isEmpty();
+        assertThat(get("peekFoo", template)).isNull();
+        assertThat(peek("peekFoo", template, int.class, -1)).isEqualTo(-1);
+        assertThat(template.toString()).contains("foo: null");
+
+        Object other = templateInstanceOf(types, SampleTypedLeafPrimitive.class);
+        assertThat(template).isEqualTo(other);
+        set("setFoo", other, 0);
+        assertThat(template).isNotEqualTo(other);
+        set("setFoo", template, 42);
+        assertThat(template).isNotEqualTo(other);
+        set("setFoo", other, 42);
+        assertThat(template).isEqualTo(other).hasSameHashCodeAs(other);
+
+        assertThat(getOptional("getFoo", template)).contains(42);
+        assertThat(get("peekFoo", template)).isEqualTo(42);
+        assertThat(peek("peekFoo", template, int.class, -1)).isEqualTo(42);
+        assertThat(template.toString()).contains("foo: 42");
+
+        get("clearFoo", template);
+        assertThat(getOptional("getFoo", template)).isEmpty();
+        assertThat(peek("peekFoo", template, int.class, -1)).isEqualTo(-1);
+    }
+
+    @Test
+    public void can_cache_projections_of_list_branch() {
+        List<Class<?>> types = compiler.apply(new StructuralType().withFeatures(FeatureGeneration.values()).make(
+            SampleBranchListFoo.class,
+            SampleEmpty.class
+        ));
+
+        assertThat(projectionOf(types, SampleBranchListFoo.class))
+            .hasOnlyDeclaredFields("delegate", "fooProjections");
+
+        SampleBranchListFoo branch = new SampleBranchListFoo();
+        branch.setFoo(new ArrayList<>());
+        SampleTypedLeafFoo first = new SampleTypedLeafFoo(), second = new SampleTypedLeafFoo();
+        branch.getFoo().add(first);
+        branch.getFoo().add(second);
+        Object branchProjection = projectionInstanceOf(types, branch);
+        List<Object> projections = getList("getFoo", branchProjection);
+        assertThat(getList("getFoo", branchProjection)).isSameAs(projections);
+        Object firstProjection = projections.get(0), secondProjection = projections.get(1);
+        assertThat(projections.get(0)).isSameAs(firstProjection);
+        assertThat(projections.get(1)).isSameAs(secondProjection);
+
+        Object thirdProjection = projectionInstanceOf(types, new SampleTypedLeafFoo());
+        projections.add(0, thirdProjection);
+        assertThat(projections).containsExactly(thirdProjection, firstProjection, secondProjection);
+        assertThat(projections.get(1)).isSameAs(firstProjection);
+        assertThat(projections.remove(0)).isSameAs(thirdProjection);
+        assertThat(projections.get(0)).isSameAs(firstProjection);
+        assertThat(projections.set(1, thirdProjection)).isSameAs(secondProjection);
+        assertThat(projections.get(1)).isSameAs(thirdProjection);
+        assertThat(branch.getFoo()).hasSize(2).element(0).isSameAs(first);
+
+        branch.getFoo().set(0, second);
+        assertThat(projections.get(0)).isNotSameAs(firstProjection);
+
+        branch.setFoo(new ArrayList<>());
+        assertThat(getList("getFoo", branchProjection)).isNotSameAs(projections).isEmpty();
+    }
+
+    @Test
+    public void can_read_cached_projections_of_list_branch_concurrently() throws Exception {
+        List<Class<?>> types = compiler.apply(new StructuralType().withFeatures(FeatureGeneration.values()).make(
+            SampleBranchListFoo.class,
+            SampleEmpty.class
+        ));
+
+        SampleBranchListFoo branch = new SampleBranchListFoo();
+        branch.setFoo(new ArrayList<>());
+        for (int index = 0; index < 1_000; index++) {
+            SampleTypedLeafFoo leaf = new SampleTypedLeafFoo();
+            leaf.setFoo(String.valueOf(index));
+            branch.getFoo().add(leaf);
+        }
+        Object branchProjection = projectionInstanceOf(types, branch);
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Object>>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                futures.add(executorService.submit(() -> {
+                    List<Object> projections = getList("getFoo", branchProjection), values = new ArrayList<>();
+                    for (int index = projections.size() - 1; index >= 0; index--) {
+                        values.add(0, get("getFoo", projections.get(index)));
+                    }
+                    return values;
+                }));
+            }
+            for (Future<List<Object>> future : futures) {
+                assertThat(future.get()).containsExactlyElementsOf(branch.getFoo().stream()
+                    .map(SampleTypedLeafFoo::getFoo)
+                    .collect(Collectors.toList()));
+            }
+        } finally {
+            executorService.shutdown();
+        }
+        List<Object> projections = getList("getFoo", branchProjection);
+        for (int index = 0; index < projections.size(); index++) {
+            assertThat(projections.get(index)).isSameAs(projections.get(index));
+        }
+    }
+
+    @Test
+    public void can_apply_bulk_operations_to_list_branch() {
+        List<Class<?>> types = compiler.apply(new StructuralType().make(
+            SampleBranchListFoo.class,
+            SampleEmpty.class
+        ));
+
+        SampleBranchListFoo branch = new SampleBranchListFoo();
+        branch.setFoo(new ArrayList<>());
+        for (int index = 0; index < 1_000; index++) {
+            SampleTypedLeafFoo leaf = new SampleTypedLeafFoo();
+            leaf.setFoo(String.valueOf(index));
+            branch.getFoo().add(leaf);
+        }
+        Object branchProjection = projectionInstanceOf(types, branch);
+        List<Object> projections = getList("getFoo", branchProjection);
+        assertThat(projections).isInstanceOf(RandomAccess.class);
+        assertThat(projections.spliterator().hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED)).isTrue();
+        assertThat(projections.parallelStream().map(projection -> get("getFoo", projection)).collect(Collectors.toList()))
+            .containsExactlyElementsOf(branch.getFoo().stream().map(SampleTypedLeafFoo::getFoo).collect(Collectors.toList()));
+
+        assertThat(projections.removeIf(projection -> Integer.parseInt((String) get("getFoo", projection)) % 2 == 1)).isTrue();
+        assertThat(branch.getFoo()).hasSize(500);
+        projections.sort(Comparator.comparing(projection -> (String) get("getFoo", projection)));
+        assertThat(branch.getFoo()).extracting(SampleTypedLeafFoo::getFoo).isSorted();
+        assertThat(projections.subList(0, 2)).extracting(projection -> get("getFoo", projection)).containsExactly("0", "10");
+
+        List<Object> additions = new ArrayList<>(projections.subList(0, 2));
+        assertThat(projections.addAll(0, additions)).isTrue();
+        assertThat(branch.getFoo()).hasSize(502).extracting(SampleTypedLeafFoo::getFoo).startsWith("0", "10", "0", "10");
+        projections.replaceAll(projection -> projectionInstanceOf(types, new SampleTypedLeafFoo()));
+        assertThat(branch.getFoo()).hasSize(502).allSatisfy(leaf -> assertThat(leaf.getFoo()).isNull());
+    }
+
+    @Test
+    public void can_cache_conversions_of_list_typed_leaf() {
+        List<Class<?>> types = compiler.apply(new StructuralType().withFeatures(FeatureGeneration.values()).make(
+            SampleTypedLeafFoo.class,
+            SampleTypedLeafOtherIntegerListFoo.class
+        ));
+
+        assertThat(projectionOf(types, SampleTypedLeafOtherIntegerListFoo.class))
+            .hasOnlyDeclaredFields("delegate", "fooConversions");
+        assertThat(projectionOf(types, SampleTypedLeafFoo.class))
+            .hasOnlyDeclaredFields("delegate");
+
+        SampleTypedLeafOtherIntegerListFoo other = new SampleTypedLeafOtherIntegerListFoo();
+        Object otherProjection = projectionInstanceOf(types, other);
+        List<Object> conversions = getList("getFoo", otherProjection);
+        other.getFoo().add(42);
+        other.getFoo().add(84);
+        assertThat(getList("getFoo", otherProjection)).isSameAs(conversions);
+        Object first = conversions.get(0);
+        assertThat(first).isEqualTo("42");
+        assertThat(conversions.get(0)).isSameAs(first);
+
+        conversions.set(1, "21");
+        assertThat(other.getFoo()).containsExactly(42, 21);
+        assertThat(conversions).containsExactly("42", "21");
+        conversions.add(0, "7");
+        assertThat(other.getFoo()).containsExactly(7, 42, 21);
+        assertThat(conversions.get(1)).isSameAs(first);
+
+        other.getFoo().set(1, 1);
+        assertThat(conversions.get(1)).isEqualTo("1");
+        assertThat(conversions).containsExactly("7", "1", "21");
+    }
+
+    @Test
+    public void can_cache_narrowing_conversions_of_list_typed_leaf() {
+        List<Class<?>> types = compiler.apply(new StructuralType().withFeatures(FeatureGeneration.values()).make(
+            SampleTypedLeafOtherLongListFoo.class,
+            SampleTypedLeafOtherIntegerListFoo.class
+        ));
+
+        SampleTypedLeafOtherIntegerListFoo other = new SampleTypedLeafOtherIntegerListFoo();
+        Object otherProjection = projectionInstanceOf(types, other);
+        List<Object> conversions = getList("getFoo", otherProjection);
+        other.getFoo().add(1);
+        assertThat(conversions.get(0)).isEqualTo(BigInteger.ONE);
+        conversions.set(0, BigInteger.ONE.shiftLeft(40));
+        conversions.add(0, BigInteger.ONE.shiftLeft(40).add(BigInteger.ONE));
+        assertThat(other.getFoo()).containsExactly(1, 0);
+        assertThat(conversions).containsExactly(BigInteger.ONE, BigInteger.ZERO);
+    }
+
+    @Test
+    public void can_read_cached_conversions_of_list_typed_leaf_concurrently() throws Exception {
+        List<Class<?>> types = compiler.apply(new StructuralType().withFeatures(FeatureGeneration.values()).make(
+            SampleTypedLeafFoo.class,
+            SampleTypedLeafOtherIntegerListFoo.class
+        ));
+
+        SampleTypedLeafOtherIntegerListFoo other = new SampleTypedLeafOtherIntegerListFoo();
+        Object otherProjection = projectionInstanceOf(types, other);
+        getList("getFoo", otherProjection);
+        for (int index = 0; index < 1_000; index++) {
+            other.getFoo().add(index);
+        }
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Object>>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                futures.add(executorService.submit(() -> new ArrayList<>(getList("getFoo", otherProjection))));
+            }
+            for (Future<List<Object>> future : futures) {
+                assertThat(future.get()).containsExactlyElementsOf(other.getFoo().stream()
+                    .map(String::valueOf)
+                    .collect(Collectors.toList()));
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void can_memoize_conversions_of_typed_leaf() {
+        List<Class<?>> types = compiler.apply(new StructuralType().withFeatures(FeatureGeneration.values()).make(
+            SampleTypedLeafFoo.class,
+            SampleTypedLeafOtherIntegerFoo.class
+        ));
+
+        assertThat(projectionOf(types, SampleTypedLeafOtherIntegerFoo.class))
+            .hasOnlyDeclaredFields("delegate", "fooConversion");
+        assertThat(projectionOf(types, SampleTypedLeafFoo.class))
+            .hasOnlyDeclaredFields("delegate");
+
+        SampleTypedLeafOtherIntegerFoo other = new SampleTypedLeafOtherIntegerFoo();
+        Object otherProjection = projectionInstanceOf(types, other);
+        assertThat(get("getFoo", otherProjection)).isNull();
+        other.setFoo(1_000);
+        Object conversion = get("getFoo", otherProjection);
+        assertThat(conversion).isEqualTo("1000");
+        assertThat(get("getFoo", otherProjection)).isSameAs(conversion);
+        other.setFoo(2_000);
+        assertThat(get("getFoo", otherProjection)).isEqualTo("2000");
+        set("setFoo", otherProjection, "3000");
+        assertThat(other.getFoo()).isEqualTo(3_000);
+        assertThat(get("getFoo", otherProjection)).isEqualTo("3000");
+    }
+
+    @Test
+    public void can_omit_identity_tracking_for_acyclic_structures() {
+        Map<ClassName, JavaFile> files = new StructuralType().make(SampleBranchFoo.class);
+        files.values().stream().filter(file -> !file.typeSpec.kind.equals(TypeSpec.Kind.INTERFACE)).forEach(file -> assertThat(file.toString())
+            .contains("this.hashCode(Collections.emptySet())", "this.equals(other, Collections.emptyMap())")
+            .doesNotContain("checked.put("));
+        List<Class<?>> types = compiler.apply(files);
+
+        Object left = templateInstanceOf(types, SampleBranchFoo.class), right = templateInstanceOf(types, SampleBranchFoo.class);
+        Object leftFoo = templateInstanceOf(types, SampleTypedLeafFoo.class), rightFoo = templateInstanceOf(types, SampleTypedLeafFoo.class);
+        set("setFoo", left, leftFoo);
+        set("setFoo", right, rightFoo);
+        set("setFoo", leftFoo, "foo");
+        set("setFoo", rightFoo, "foo");
+        assertThat(left).isEqualTo(right).hasSameHashCodeAs(right);
+        set("setFoo", rightFoo, "bar");
+        assertThat(left).isNotEqualTo(right);
+
+        SampleBranchFoo leftBranch = new SampleBranchFoo(), rightBranch = new SampleBranchFoo();
+        leftBranch.setFoo(new SampleTypedLeafFoo());
+        leftBranch.getFoo().setFoo("foo");
+        rightBranch.setFoo(new SampleTypedLeafFoo());
+        rightBranch.getFoo().setFoo("foo");
+        assertThat(projectionInstanceOf(types, leftBranch))
+            .isEqualTo(projectionInstanceOf(types, rightBranch))
+            .hasSameHashCodeAs(projectionInstanceOf(types, rightBranch));
+        rightBranch.getFoo().setFoo("bar");
+        assertThat(projectionInstanceOf(types, leftBranch)).isNotEqualTo(projectionInstanceOf(types, rightBranch));
+    }
+
+    @Test
+    public void can_dispatch_by_type() throws Exception {
+        List<Class<?>> types = compiler.apply(new StructuralType().withStructuralResolver(type -> {
+            if (type.getPackageName().startsWith("no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype")) {
+                return Optional.of(new StructuralResolver.Branch<Field>() {
+                    @Override
+                    public Iterable<Field> getProperties() {
+                        return Arrays.asList(type.getDeclaredFields());
+                    }
+
+                    @Override
+                    public String getName(Field field) {
+                        return field.getName();
+                    }
+
+                    @Override
+                    public Class<?> getType(Field field) {
+                        return field.getType();
+                    }
+
+                    @Override
+                    public Optional<Class<?>> getSuperClass() {
+                        if (type == SampleSubLeftFoo.class || type == SampleSubRightFoo.class) {
+                            return Optional.of(SampleBaseFoo.class);
+                        } else if (type == SampleSubLeftBar.class || type == SampleSubRightBar.class) {
+                            return Optional.of(SampleBaseBar.class);
+                        } else {
+                            return Optional.empty();
+                        }
+                    }
+
+                    @Override
+                    public List<Class<?>> getSubClasses() {
+                        if (type == SampleBaseFoo.class) {
+                            return Arrays.asList(SampleSubLeftFoo.class, SampleSubRightFoo.class);
+                        } else if (type == SampleBaseBar.class) {
+                            return Arrays.asList(SampleSubLeftBar.class, SampleSubRightBar.class);
+                        } else {
+                            return Collections.emptyList();
+                        }
+                    }
+                });
+            } else {
+                return Optional.empty();
+            }
+        }).withGrouper(new IndexAlignedGrouper()).withTypeDispatch(true).make(
+            SampleBaseFoo.class,
+            SampleBaseBar.class
+        ));
+
+        Class<?> base = structureOf(types, SampleBaseFoo.class);
+        assertThat(base.getDeclaredClasses()).hasSize(1);
+        assertThat(projectionOf(types, SampleBaseFoo.class)).hasDeclaredFields("delegate", "WRAP");
+
+        Method wrap = projectionOf(types, SampleBaseFoo.class).getMethod("wrap", SampleBaseFoo.class);
+        assertThat(wrap.invoke(null, new SampleBaseFoo())).isExactlyInstanceOf(projectionOf(types, SampleBaseFoo.class));
+        assertThat(wrap.invoke(null, new SampleSubLeftFoo())).isExactlyInstanceOf(projectionOf(types, SampleSubLeftFoo.class));
+        assertThat(wrap.invoke(null, new SampleSubRightFoo())).isExactlyInstanceOf(projectionOf(types, SampleSubRightFoo.class));
+        assertThat(wrap.invoke(null, (Object) null)).isNull();
+
+        Method ofAny = base.getMethod("ofAny", Object.class);
+        assertThat((Optional<?>) ofAny.invoke(null, new SampleSubRightBar())).containsInstanceOf(projectionOf(types, SampleSubRightBar.class));
+        assertThat((Optional<?>) ofAny.invoke(null, new SampleBaseBar())).containsInstanceOf(projectionOf(types, SampleBaseBar.class));
+        assertThat((Optional<?>) ofAny.invoke(null, "foo")).isEmpty();
+
+        Method ofType = base.getMethod("ofType", Class.class);
+        assertThat((Optional<?>) ofType.invoke(null, SampleSubLeftBar.class)).containsInstanceOf(projectionOf(types, SampleSubLeftBar.class));
+        assertThat((Optional<?>) ofType.invoke(null, SampleBaseFoo.class)).containsInstanceOf(projectionOf(types, SampleBaseFoo.class));
+        assertThat((Optional<?>) ofType.invoke(null, String.class)).isEmpty();
+
+        SampleBaseFoo delegate = new SampleBaseFoo();
+        delegate.setBase("foo");
+        Object projection = wrap.invoke(null, delegate);
+        Method copyTo = base.getMethod("copyTo", Class.class);
+        Optional<?> copy = (Optional<?>) copyTo.invoke(projection, SampleBaseBar.class);
+        assertThat(copy).containsInstanceOf(projectionOf(types, SampleBaseBar.class));
+        assertThat(get("getBase", copy.orElseThrow())).isEqualTo("foo");
+        assertThat((Optional<?>) copyTo.invoke(projection, String.class)).isEmpty();
+    }
+
+    @Test
+    public void can_dispatch_enumeration_by_type() throws Exception {
+        List<Class<?>> types = compiler.apply(new StructuralType().withTypeDispatch(true).make(
+            SampleEnumLeafFoo.class,
+            SampleEnumLeafOtherFoo.class
+        ));
+
+        assertThat(enumerationOf(types, SampleEnumFoo.class)).hasDeclaredFields("UNWRAP");
+
+        Method unwrap = enumerationOf(types, SampleEnumFoo.class).getMethod("unwrap", enumerationOf(types, SampleEnumFoo.class), Class.class);
+        assertThat(unwrap.invoke(null, enumerationConstantOf(types, SampleEnumFoo.class, "FOO"), SampleEnumFoo.class)).isEqualTo(SampleEnumFoo.FOO);
+        assertThat(unwrap.invoke(null, enumerationConstantOf(types, SampleEnumFoo.class, "FOO"), SampleEnumOtherFoo.class)).isEqualTo(SampleEnumOtherFoo.FOO);
+        assertThat(unwrap.invoke(null, enumerationConstantOf(types, SampleEnumFoo.class, "BAR"), SampleEnumOtherFoo.class)).isNull();
+        assertThat(unwrap.invoke(null, enumerationConstantOf(types, SampleEnumFoo.class, "QUX"), SampleEnumOtherFoo.class)).isEqualTo(SampleEnumOtherFoo.QUX);
+        assertThat(unwrap.invoke(null, null, SampleEnumFoo.class)).isNull();
+        assertThatThrownBy(() -> unwrap.invoke(null, enumerationConstantOf(types, SampleEnumFoo.class, "FOO"), SampleEnumBar.class))
+            .hasCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void can_memoize_branch_projections() {
+        List<Class<?>> types = compiler.apply(new StructuralType().withFeatures(FeatureGeneration.values()).make(
+            SampleBranchFoo.class
+        ));
+
+        assertThat(projectionOf(types, SampleBranchFoo.class)).hasDeclaredFields("delegate", "fooProjection");
+
+        SampleBranchFoo branch = new SampleBranchFoo();
+        Object projection = projectionInstanceOf(types, branch);
+        assertThat(get("getFoo", projection)).isNull();
+        SampleTypedLeafFoo leaf = new SampleTypedLeafFoo();
+        branch.setFoo(leaf);
+        Object child = get("getFoo", projection);
+        assertThat(child).isNotNull();
+        assertThat(get("getFoo", projection)).isSameAs(child);
+        branch.setFoo(new SampleTypedLeafFoo());
+        assertThat(get("getFoo", projection)).isNotSameAs(child);
+        set("setFoo", projection, child);
+        assertThat(branch.getFoo()).isSameAs(leaf);
+        assertThat(get("getFoo", projection)).isNotNull().isSameAs(get("getFoo", projection));
+    }
+
+    @Test
+    public void can_memoize_optional_branch_projections() {
+        List<Class<?>> types = compiler.apply(new StructuralType().withFeatures(FeatureGeneration.values()).make(
+            SampleBranchFoo.class,
+            SampleEmpty.class
+        ));
+
+        SampleBranchFoo branch = new SampleBranchFoo();
+        Object projection = projectionInstanceOf(types, branch);
+        assertThat(getOptional("getFoo", projection)).isEmpty();
+        branch.setFoo(new SampleTypedLeafFoo());
+        Object child = get("getFoo", projection);
+        assertThat((Optional<?>) child).isPresent();
+        assertThat(get("getFoo", projection)).isSameAs(child);
+        branch.setFoo(null);
+        assertThat(getOptional("getFoo", projection)).isEmpty();
+    }
+
+    @Test
+    public void can_copy_iteratively() throws Exception {
+        List<Class<?>> types = compiler.apply(new StructuralType().withIterativeCopies(true).make(
+            SampleBranchRecursiveFoo.class,
+            SampleBranchRecursiveOtherFoo.class
+        ));
+
+        Object cyclic = templateInstanceOf(types, SampleBranchRecursiveFoo.class);
+        set("setFoo", cyclic, cyclic);
+        Object cyclicCopy = get("copy", cyclic);
+        assertThat(cyclicCopy).isNotSameAs(cyclic);
+        assertThat(get("getFoo", cyclicCopy)).isSameAs(cyclicCopy);
+
+        Object root = templateInstanceOf(types, SampleBranchRecursiveFoo.class), current = root;
+        for (int index = 0; index < 100_000; index++) {
+            Object next = templateInstanceOf(types, SampleBranchRecursiveFoo.class);
+            set("setFoo", current, next);
+            current = next;
+        }
+        Object copy = get("copy", root);
+        int depth = 0;
+        for (Object node = copy; node != null; node = get("getFoo", node)) {
+            depth++;
+        }
+        assertThat(depth).isEqualTo(100_001);
+
+        Object projection = ((Optional<?>) structureOf(types, SampleBranchRecursiveFoo.class)
+            .getMethod("copyTo", Class.class)
+            .invoke(root, SampleBranchRecursiveFoo.class)).orElseThrow();
+        SampleBranchRecursiveFoo bean = (SampleBranchRecursiveFoo) projectionOf(types, SampleBranchRecursiveFoo.class)
+            .getMethod("unwrap", structureOf(types, SampleBranchRecursiveFoo.class))
+            .invoke(null, projection);
+        depth = 0;
+        for (Object node = bean; node != null; node = node instanceof SampleBranchRecursiveFoo
+            ? ((SampleBranchRecursiveFoo) node).getFoo()
+            : ((SampleBranchRecursiveOtherFoo) node).getFoo()) {
+            depth++;
+        }
+        assertThat(depth).isEqualTo(100_001);
+    }
+
+    @Test
+    public void can_retain_identity_tracking_for_recursive_structures() {
+        Map<ClassName, JavaFile> files = new StructuralType().make(SampleBranchRecursiveFoo.class, SampleBranchRecursiveOtherFoo.class);
+        files.values().stream().filter(file -> !file.typeSpec.kind.equals(TypeSpec.Kind.INTERFACE)).forEach(file -> assertThat(file.toString())
+            .doesNotContain("Collections.emptySet()", "Collections.emptyMap()")
+            .contains("checked.put("));
+    }
+
+    @Test
+    public void can_omit_nullable_getters() {
+        List<Class<?>> types = compiler.apply(new StructuralType().withProperties(
+            PropertyGeneration.GETTER,
+            PropertyGeneration.SETTER
+        ).make(
+            SampleTypedLeafPrimitive.class,
+            SampleEmpty.class
+        ));
+
+        assertThat(Arrays.stream(structureOf(types, SampleTypedLeafPrimitive.class).getMethods()))
+            .noneMatch(method -> method.getName().equals("peekFoo"));
+    }
+
+    @Test
+    public void can_split_oversized_methods() {
+        Map<ClassName, JavaFile> files = new StructuralType().withMethodSizeLimit(1).make(SampleEnumNestedBranchFoo.class);
+        files.values().stream().filter(file -> file.typeSpec.kind.equals(TypeSpec.Kind.CLASS)).forEach(file -> assertThat(file.toString())
+            .contains("doHashCode1(", "doEquals1(", "doToString1(", "copyOf1(")
+            .doesNotContain("doHashCode2(", "doEquals2(", "doToString2(", "copyOf2("));
+        List<Class<?>> types = compiler.apply(files);
+
+        Object left = templateInstanceOf(types, SampleEnumNestedBranchFoo.class), right = templateInstanceOf(types, SampleEnumNestedBranchFoo.class);
+        set("setFoo", left, enumerationConstantOf(types, SampleEnumFoo.class, "FOO"));
+        set("setFoo", right, enumerationConstantOf(types, SampleEnumFoo.class, "FOO"));
+        set("setBar", left, enumerationConstantOf(types, SampleEnumFoo.class, "BAR"));
+        set("setBar", right, enumerationConstantOf(types, SampleEnumFoo.class, "BAR"));
+        assertThat(left).isEqualTo(right).hasSameHashCodeAs(right);
+        assertThat(left.toString()).contains(" - foo: FOO", " - bar: BAR");
+        assertThat(get("copy", left)).isEqualTo(left);
+        set("setBar", right, enumerationConstantOf(types, SampleEnumFoo.class, "FOO"));
+        assertThat(left).isNotEqualTo(right);
+
+        SampleEnumNestedBranchFoo leftBean = new SampleEnumNestedBranchFoo(), rightBean = new SampleEnumNestedBranchFoo();
+        leftBean.setFoo(SampleEnumFoo.FOO);
+        rightBean.setFoo(SampleEnumFoo.FOO);
+        leftBean.setBar(SampleEnumFoo.BAR);
+        rightBean.setBar(SampleEnumFoo.BAR);
+        Object leftProjection = projectionInstanceOf(types, leftBean), rightProjection = projectionInstanceOf(types, rightBean);
+        assertThat(leftProjection).isEqualTo(rightProjection).hasSameHashCodeAs(rightProjection);
+        assertThat(leftProjection.toString()).contains(" - foo: FOO", " - bar: BAR");
+        assertThat(get("copy", leftProjection)).isEqualTo(leftProjection);
+        rightBean.setBar(SampleEnumFoo.FOO);
+        assertThat(leftProjection).isNotEqualTo(rightProjection);
+    }
+
+    @Test
+    public void can_declare_final_classes() throws Exception {
+        List<Class<?>> types = compiler.apply(new StructuralType().withStructuralResolver(type -> {
+            if (type.getPackageName().startsWith("no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype")) {
+                return Optional.of(new StructuralResolver.Branch<Field>() {
+                    @Override
+                    public Iterable<Field> getProperties() {
+                        return Arrays.asList(type.getDeclaredFields());
+                    }
+
+                    @Override
+                    public String getName(Field field) {
+                        return field.getName();
+                    }
+
+                    @Override
+                    public Class<?> getType(Field field) {
+                        return field.getType();
+                    }
+
+                    @Override
+                    public Optional<Class<?>> getSuperClass() {
+                        if (type == SampleSubLeftFoo.class || type == SampleSubRightFoo.class) {
+                            return Optional.of(SampleBaseFoo.class);
+                        } else {
+                            return Optional.empty();
+                        }
+                    }
+
+                    @Override
+                    public List<Class<?>> getSubClasses() {
+                        if (type == SampleBaseFoo.class) {
+                            return Arrays.asList(SampleSubLeftFoo.class, SampleSubRightFoo.class);
+                        } else {
+                            return Collections.emptyList();
+                        }
+                    }
+                });
+            } else {
+                return Optional.empty();
+            }
+        }).withFinalClasses(true).make(SampleBaseFoo.class));
+
+        assertThat(projectionOf(types, SampleBaseFoo.class)).isNotFinal();
+        assertThat(projectionOf(types, SampleSubLeftFoo.class)).isFinal();
+        assertThat(projectionOf(types, SampleSubRightFoo.class)).isFinal();
+        assertThat(templateOf(types, SampleBaseFoo.class)).isNotFinal();
+        assertThat(templateOf(types, SampleSubLeftFoo.class)).isFinal();
+        assertThat(templateOf(types, SampleSubRightFoo.class)).isFinal();
+
+        SampleSubLeftFoo sample = new SampleSubLeftFoo();
+        Object projection = projectionOf(types, SampleBaseFoo.class).getMethod("wrap", SampleBaseFoo.class).invoke(null, sample);
+        assertThat(projection).isInstanceOf(projectionOf(types, SampleSubLeftFoo.class));
+    }
+
+    @Test
+    public void can_serialize_with_generated_jackson_module() throws Exception {
+        for (int methodSizeLimit : new int[] {1, 2_000}) {
+            List<Class<?>> types = compiler.apply(new StructuralType()
+                .withJacksonModule("sample.SampleJacksonModule")
+                .withMethodSizeLimit(methodSizeLimit)
+                .make(SampleBranchListFoo.class));
+            ObjectMapper mapper = new ObjectMapper().registerModule(jacksonModuleOf(types));
+            Object branch = templateInstanceOf(types, SampleBranchListFoo.class), leaf = templateInstanceOf(types, SampleTypedLeafFoo.class);
+            set("setFoo", leaf, "bar");
+            getList("getFoo", branch).add(leaf);
+            String json = mapper.writeValueAsString(branch);
+            assertThat(json).isEqualTo("{\"foo\":[{\"foo\":\"bar\"}]}");
+            assertThat(mapper.readValue(json, structureOf(types, SampleBranchListFoo.class))).isEqualTo(branch);
+            assertThatThrownBy(() -> mapper.readValue("{\"qux\":1}", structureOf(types, SampleBranchListFoo.class)))
+                .isInstanceOf(UnrecognizedPropertyException.class);
+        }
+
+        List<Class<?>> types = compiler.apply(new StructuralType()
+            .withJacksonModule("sample.SampleJacksonModule")
+            .make(SampleEnumNestedBranchFoo.class));
+        ObjectMapper mapper = new ObjectMapper().registerModule(jacksonModuleOf(types));
+        Object enumeration = templateInstanceOf(types, SampleEnumNestedBranchFoo.class);
+        set("setFoo", enumeration, enumerationConstantOf(types, SampleEnumFoo.class, "FOO"));
+        String json = mapper.writeValueAsString(enumeration);
+        assertThat(json).isEqualTo("{\"foo\":\"FOO\",\"bar\":null}");
+        assertThat(mapper.readValue(json, structureOf(types, SampleEnumNestedBranchFoo.class))).isEqualTo(enumeration);
+
+        types = compiler.apply(new StructuralType()
+            .withJacksonModule("sample.SampleJacksonModule")
+            .make(SampleTypedLeafPrimitive.class));
+        mapper = new ObjectMapper().registerModule(jacksonModuleOf(types));
+        Object primitive = templateInstanceOf(types, SampleTypedLeafPrimitive.class);
+        primitive.getClass().getMethod("setFoo", int.class).invoke(primitive, 42);
+        json = mapper.writeValueAsString(primitive);
+        assertThat(json).isEqualTo("{\"foo\":42}");
+        assertThat(mapper.readValue(json, structureOf(types, SampleTypedLeafPrimitive.class))).isEqualTo(primitive);
+    }
+
+    @Test
+    public void can_deserialize_coerced_values_with_generated_jackson_module() throws Exception {
+        List<Class<?>> types = compiler.apply(new StructuralType()
+            .withJacksonModule("sample.SampleJacksonModule")
+            .make(SampleTypedLeafOtherIntegerFoo.class));
+        ObjectMapper mapper = new ObjectMapper().registerModule(jacksonModuleOf(types));
+        Object value = mapper.readValue("{\"foo\":\"\"}", structureOf(types, SampleTypedLeafOtherIntegerFoo.class));
+        assertThat(get("getFoo", value)).isNull();
+        value = mapper.readValue("{\"foo\":\"42\"}", structureOf(types, SampleTypedLeafOtherIntegerFoo.class));
+        assertThat(get("getFoo", value)).isEqualTo(42);
+
+        types = compiler.apply(new StructuralType()
+            .withJacksonModule("sample.SampleJacksonModule")
+            .make(SampleTypedLeafPrimitive.class));
+        mapper = new ObjectMapper().registerModule(jacksonModuleOf(types));
+        value = mapper.readValue("{\"foo\":\"\"}", structureOf(types, SampleTypedLeafPrimitive.class));
+        assertThat(get("getFoo", value)).isEqualTo(0);
+    }
+
+    @Test
+    public void cannot_deserialize_non_object_with_generated_jackson_module() throws Exception {
+        List<Class<?>> types = compiler.apply(new StructuralType()
+            .withJacksonModule("sample.SampleJacksonModule")
+            .make(SampleTypedLeafFoo.class));
+        ObjectMapper mapper = new ObjectMapper().registerModule(jacksonModuleOf(types));
+        assertThatThrownBy(() -> mapper.readValue("\"foo\"", structureOf(types, SampleTypedLeafFoo.class)))
+            .isInstanceOf(MismatchedInputException.class);
+        assertThatThrownBy(() -> mapper.readValue("[]", structureOf(types, SampleTypedLeafFoo.class)))
+            .isInstanceOf(MismatchedInputException.class);
+        assertThat(mapper.readValue("{}", structureOf(types, SampleTypedLeafFoo.class)))
+            .isEqualTo(templateInstanceOf(types, SampleTypedLeafFoo.class));
+    }
+
+    @Test
+    public void can_serialize_with_generated_jackson_module_and_polymorphism() throws Exception {
+        List<Class<?>> types = compiler.apply(new StructuralType()
+            .withJacksonModule("sample.SampleJacksonModule")
+            .make(SampleBranchListFoo.class));
+        ObjectMapper mapper = new ObjectMapper()
+            .registerModule(new StructuralTypeModule().withPolymorphism())
+            .registerModule(jacksonModuleOf(types));
+        Object branch = templateInstanceOf(types, SampleBranchListFoo.class), leaf = templateInstanceOf(types, SampleTypedLeafFoo.class);
+        set("setFoo", leaf, "bar");
+        getList("getFoo", branch).add(leaf);
+        String json = mapper.writeValueAsString(branch);
+        assertThat(json).isEqualTo("{\"@type\":\"<template>\",\"foo\":[{\"@type\":\"<template>\",\"foo\":\"bar\"}]}");
+        assertThat(mapper.readValue(json, structureOf(types, SampleBranchListFoo.class))).isEqualTo(branch);
+    }
+
+    @Test
+    public void can_project_json_node() throws Exception {
+        List<Class<?>> types = compiler.apply(new StructuralType().make(SampleBranchListFoo.class));
+        ObjectMapper mapper = new ObjectMapper();
+        StructuralTypeNodeProjector projector = new StructuralTypeNodeProjector(mapper);
+        ObjectNode node = (ObjectNode) mapper.readTree("{\"foo\":[{\"foo\":\"bar\"}]}");
+        Object branch = projector.project(structureOf(types, SampleBranchListFoo.class), node);
+        assertThat(getList("getFoo", branch)).hasSize(1);
+        assertThat(get("getFoo", getList("getFoo", branch).get(0))).isEqualTo("bar");
+
+        Object copy = get("copy", branch);
+        assertThat(copy).isInstanceOf(templateOf(types, SampleBranchListFoo.class));
+        assertThat(get("getFoo", getList("getFoo", copy).get(0))).isEqualTo("bar");
+        assertThat(branch).isEqualTo(projector.project(structureOf(types, SampleBranchListFoo.class), node.deepCopy()));
+        assertThat(branch.hashCode()).isEqualTo(node.hashCode());
+        assertThat(branch.toString()).isEqualTo(structureOf(types, SampleBranchListFoo.class).getSimpleName() + node);
+
+        Object leaf = templateInstanceOf(types, SampleTypedLeafFoo.class);
+        set("setFoo", leaf, "qux");
+        getList("getFoo", branch).add(0, leaf);
+        assertThat(mapper.writeValueAsString(node)).isEqualTo("{\"foo\":[{\"foo\":\"qux\"},{\"foo\":\"bar\"}]}");
+        assertThat(get("getFoo", getList("getFoo", branch).set(1, null))).isEqualTo("bar");
+        assertThat(mapper.writeValueAsString(node)).isEqualTo("{\"foo\":[{\"foo\":\"qux\"},null]}");
+        assertThat(getList("getFoo", branch).remove(1)).isNull();
+        assertThat(mapper.writeValueAsString(node)).isEqualTo("{\"foo\":[{\"foo\":\"qux\"}]}");
+    }
+
+    @Test
+    public void can_project_json_node_with_generated_properties() throws Exception {
+        List<Class<?>> types = compiler.apply(new StructuralType().make(SampleBranchListFoo.class));
+        ObjectMapper mapper = new ObjectMapper();
+        StructuralTypeNodeProjector projector = new StructuralTypeNodeProjector(mapper);
+        Class<?> branchType = structureOf(types, SampleBranchListFoo.class), leafType = structureOf(types, SampleTypedLeafFoo.class);
+        ObjectNode node = mapper.createObjectNode();
+        Object branch = projector.project(branchType, node);
+        assertThat(has("hasFoo", branch)).isEqualTo(PropertyDefinition.LIST);
+
+        Object leaf = projector.project(leafType, mapper.createObjectNode());
+        assertThat(has("hasFoo", leaf)).isEqualTo(PropertyDefinition.SINGLE);
+        assertThat(leafType.getMethod("withFoo", String.class).invoke(leaf, "foo")).isSameAs(leaf);
+        assertThat(((Trial<?>) leafType.getMethod("trialFoo", String.class).invoke(leaf, "bar")).resume()).isSameAs(leaf);
+        assertThat(get("getFoo", leaf)).isEqualTo("bar");
+
+        set("addFoo", branch, leaf);
+        branchType.getMethod("mergeFoo", leafType).invoke(branch, templateInstanceOf(types, SampleTypedLeafFoo.class));
+        Object array = java.lang.reflect.Array.newInstance(leafType, 1);
+        java.lang.reflect.Array.set(array, 0, leaf);
+        assertThat(branchType.getMethod("withFoo", array.getClass()).invoke(branch, array)).isSameAs(branch);
+        assertThat(((Trial<?>) branchType.getMethod("trialFoo", leafType).invoke(branch, (Object) null)).resume()).isSameAs(branch);
+        Object defined = getOptional("defineFoo", branch).orElseThrow();
+        set("setFoo", defined, "qux");
+        assertThat(mapper.writeValueAsString(node))
+            .isEqualTo("{\"foo\":[{\"foo\":\"bar\"},{\"foo\":null},{\"foo\":\"bar\"},null,{\"foo\":\"qux\"}]}");
+        set("setFoo", leaf, "baz");
+        assertThat(get("getFoo", getList("getFoo", branch).get(0))).isEqualTo("bar");
+    }
+
+    @Test
+    public void can_project_map() throws Exception {
+        List<Class<?>> types = compiler.apply(new StructuralType()
+            .withMapProjections(true)
+            .make(SampleBranchListFoo.class));
+        Map<String, Object> leaf = new HashMap<>(Collections.singletonMap("foo", "bar"));
+        Map<String, Object> map = new HashMap<>(Collections.singletonMap("foo", new ArrayList<>(Collections.singletonList(leaf))));
+        Object branch = structureOf(types, SampleBranchListFoo.class).getMethod("ofMap", Map.class).invoke(null, map);
+        assertThat(getList("getFoo", branch)).hasSize(1);
+        assertThat(get("getFoo", getList("getFoo", branch).get(0))).isEqualTo("bar");
+        set("setFoo", getList("getFoo", branch).get(0), "qux");
+        assertThat(leaf).containsEntry("foo", "qux");
+        assertThat(getOptional("defineFoo", branch)).isPresent();
+        assertThat((List<?>) map.get("foo")).hasSize(2).element(1).isInstanceOf(Map.class);
+        assertThat(branch).isEqualTo(structureOf(types, SampleBranchListFoo.class).getMethod("ofMap", Map.class).invoke(null, map));
+        assertThat(get("delegate", branch)).isEqualTo(Optional.of(map));
+        assertThat(get("copy", branch)).isInstanceOf(templateOf(types, SampleBranchListFoo.class));
+        map.put("foo", "qux");
+        assertThatThrownBy(() -> getList("getFoo", branch)).hasRootCauseInstanceOf(IllegalStateException.class);
+
+        types = compiler.apply(new StructuralType()
+            .withMapProjections(true)
+            .make(SampleTypedLeafPrimitive.class));
+        Map<String, Object> primitive = new HashMap<>();
+        Object projection = structureOf(types, SampleTypedLeafPrimitive.class).getMethod("ofMap", Map.class).invoke(null, primitive);
+        assertThat(get("getFoo", projection)).isEqualTo(0);
+        primitive.put("foo", "42");
+        assertThat(get("getFoo", projection)).isEqualTo(42);
+        projection.getClass().getMethod("setFoo", int.class).invoke(projection, 84);
+        assertThat(primitive).containsEntry("foo", 84);
+        primitive.put("foo", true);
+        assertThatThrownBy(() -> get("getFoo", projection)).hasRootCauseInstanceOf(IllegalStateException.class);
+
+        types = compiler.apply(new StructuralType()
+            .withMapProjections(true)
+            .make(SampleEnumNestedBranchFoo.class));
+        Object enumeration = structureOf(types, SampleEnumNestedBranchFoo.class)
+            .getMethod("ofMap", Map.class)
+            .invoke(null, new HashMap<>(Collections.singletonMap("foo", "FOO")));
+        assertThat(get("getFoo", enumeration)).isEqualTo(enumerationConstantOf(types, SampleEnumFoo.class, "FOO"));
+        assertThat(get("getBar", enumeration)).isNull();
+    }
+
     private static Class<?> projectionOf(List<Class<?>> candidates, Class<?> type) {
         return candidates.stream()
             .filter(candidate -> candidate.isAnnotationPresent(ProjectionOf.class))
@@ -4940,6 +5797,19 @@ public class StructuralTypeTest {
         return Enum.valueOf((Class) enumerationOf(candidates, type), name);
     }
 
+    private static Module jacksonModuleOf(List<Class<?>> candidates) {
+        try {
+            return (Module) candidates.stream()
+                .filter(candidate -> candidate.getName().equals("sample.SampleJacksonModule"))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Cannot find Jackson module"))
+                .getConstructor()
+                .newInstance();
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
     private static Object get(String getter, Object instance) {
         try {
             return instance.getClass().getMethod(getter).invoke(instance);
@@ -4948,6 +5818,14 @@ public class StructuralTypeTest {
         }
     }
 
+    private static Object peek(String getter, Object instance, Class<?> type, Object absent) {
+        try {
+            return instance.getClass().getMethod(getter, type).invoke(instance, absent);
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
     @SuppressWarnings("unchecked")
     private static <T> Optional<T> getOptional(String getter, Object instance) {
         Object value = get(getter, instance);
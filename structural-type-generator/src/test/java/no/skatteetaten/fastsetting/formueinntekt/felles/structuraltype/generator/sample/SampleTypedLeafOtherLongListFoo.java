@@ -0,0 +1,16 @@
+package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.generator.sample;
+
+import java.util.List;
+
+public class SampleTypedLeafOtherLongListFoo {
+
+    private List<Long> foo;
+
+    public List<Long> getFoo() {
+        return foo;
+    }
+
+    public void setFoo(List<Long> foo) {
+        this.foo = foo;
+    }
+}
@@ -4,7 +4,6 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonSetter;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.annotation.Nulls;
-import com.fasterxml.jackson.databind.DatabindContext;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.PropertyName;
@@ -12,38 +11,51 @@ import com.fasterxml.jackson.databind.cfg.MapperConfig;
 import com.fasterxml.jackson.databind.introspect.*;
 import com.fasterxml.jackson.databind.jsontype.TypeResolverBuilder;
 import com.fasterxml.jackson.databind.jsontype.impl.StdTypeResolverBuilder;
-import com.fasterxml.jackson.databind.jsontype.impl.TypeIdResolverBase;
 import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api.*;
 
 import java.lang.reflect.Constructor;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashMap;
+import java.lang.reflect.Modifier;
 import java.util.Map;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 class StructuralTypeAnnotationIntrospector extends NopAnnotationIntrospector {
 
     private final String expansion, getter, polymorphism;
 
-    StructuralTypeAnnotationIntrospector(String expansion, String getter, String polymorphism) {
+    private final Set<Class<?>> delegates;
+
+    StructuralTypeAnnotationIntrospector(String expansion, String getter, String polymorphism, Set<Class<?>> delegates) {
         this.expansion = expansion;
         this.getter = getter;
         this.polymorphism = polymorphism;
+        this.delegates = delegates;
     }
 
     @Override
     public JavaType refineDeserializationType(MapperConfig<?> config, Annotated a, JavaType baseType) throws JsonMappingException {
         if (polymorphism == null) {
-            TemplatedBy templatedBy = a.getAnnotation(TemplatedBy.class);
-            if (templatedBy != null) {
-                return config.constructType(templatedBy.value());
+            Class<?> type = toDeserializationType(a);
+            if (type != null) {
+                return config.constructType(type);
             }
         }
         return super.refineDeserializationType(config, a, baseType);
     }
 
+    private Class<?> toDeserializationType(Annotated a) {
+        DelegatedBy delegatedBy = a.getAnnotation(DelegatedBy.class);
+        if (delegatedBy != null && !delegates.isEmpty()) {
+            for (Class<?> type : delegatedBy.value()) {
+                ProjectionOf projectionOf = type.getAnnotation(ProjectionOf.class);
+                if (projectionOf != null && delegates.contains(projectionOf.value())) {
+                    return type;
+                }
+            }
+        }
+        TemplatedBy templatedBy = a.getAnnotation(TemplatedBy.class);
+        return templatedBy == null ? null : templatedBy.value();
+    }
+
     @Override
     public JavaType refineSerializationType(MapperConfig<?> config, Annotated a, JavaType baseType) throws JsonMappingException {
         DelegationOf delegationOf = a.getAnnotation(DelegationOf.class);
@@ -75,9 +87,12 @@ class StructuralTypeAnnotationIntrospector extends NopAnnotationIntrospector {
 
     @Override
     public JsonCreator.Mode findCreatorAnnotation(MapperConfig<?> config, Annotated a) {
-        if (a instanceof AnnotatedConstructor && ((AnnotatedConstructor) a).getDeclaringClass().isAnnotationPresent(TemplateOf.class)) {
+        if (a instanceof AnnotatedConstructor && StructuralTypeMetadata.of(((AnnotatedConstructor) a).getDeclaringClass()).isTemplate()) {
             return JsonCreator.Mode.PROPERTIES;
         }
+        if (isDelegatingFactory(a)) {
+            return JsonCreator.Mode.DELEGATING;
+        }
         return super.findCreatorAnnotation(config, a);
     }
 
@@ -116,36 +131,42 @@ class StructuralTypeAnnotationIntrospector extends NopAnnotationIntrospector {
                 && isStructuralType(((AnnotatedMethod) a).getRawParameterType(0));
     }
 
+    private boolean isDelegatingFactory(Annotated a) {
+        if (a instanceof AnnotatedMethod
+                && a.getName().equals("wrap")
+                && Modifier.isStatic(((AnnotatedMethod) a).getModifiers())
+                && ((AnnotatedMethod) a).getParameterCount() == 1) {
+            ProjectionOf projectionOf = ((AnnotatedMethod) a).getDeclaringClass().getAnnotation(ProjectionOf.class);
+            return projectionOf != null
+                    && delegates.contains(projectionOf.value())
+                    && ((AnnotatedMethod) a).getRawParameterType(0) == projectionOf.value();
+        }
+        return false;
+    }
+
     private boolean isExpansionProperty(AnnotatedMember member) {
         return member.getName().equals(getter) && isStructuralType(member.getMember().getDeclaringClass());
     }
 
     private static boolean isStructuralType(Class<?> type) {
-        return type.isAnnotationPresent(CompoundOf.class)
-                || type.isAnnotationPresent(DelegationOf.class)
-                || type.isAnnotationPresent(TemplateOf.class)
-                || type.isAnnotationPresent(ExpansionOf.class);
+        return StructuralTypeMetadata.of(type).isStructural();
     }
 
     private static boolean isTemplateConstructorParameter(AnnotatedMember parameter) {
         return parameter instanceof AnnotatedParameter
                 && parameter.getMember() instanceof Constructor<?>
-                && parameter.getDeclaringClass().isAnnotationPresent(TemplateOf.class);
+                && StructuralTypeMetadata.of(parameter.getDeclaringClass()).isTemplate();
     }
 
     @Override
     public String[] findEnumValues(MapperConfig<?> config, AnnotatedClass annotatedClass, Enum<?>[] enumValues, String[] names) {
-        Map<String, String> namedEnumerations = new HashMap<>();
-        for (AnnotatedField field : annotatedClass.fields()) {
-            EnumeratedAs enumeratedAs = field.getAnnotation(EnumeratedAs.class);
-            if (enumeratedAs != null) {
-                namedEnumerations.put(field.getName(), enumeratedAs.value());
-            }
-        }
-        for (int index = 0; index < enumValues.length; index++) {
-            String override = namedEnumerations.get(enumValues[index].name());
-            if (override != null) {
-                names[index] = override;
+        Map<String, String> namedEnumerations = StructuralTypeMetadata.of(annotatedClass.getRawType()).getEnumerations();
+        if (!namedEnumerations.isEmpty()) {
+            for (int index = 0; index < enumValues.length; index++) {
+                String override = namedEnumerations.get(enumValues[index].name());
+                if (override != null) {
+                    names[index] = override;
+                }
             }
         }
         return names;
@@ -154,67 +175,14 @@ class StructuralTypeAnnotationIntrospector extends NopAnnotationIntrospector {
     @Override
     public TypeResolverBuilder<?> findTypeResolver(MapperConfig<?> config, AnnotatedClass ac, JavaType baseType) {
         if (polymorphism != null && ac.hasAnnotation(CompoundOf.class)) {
-            Map<String, Class<?>> values = ac.hasAnnotation(DelegatedBy.class) ? Arrays.stream(ac.getAnnotation(DelegatedBy.class).value()).collect(Collectors.toMap(
-                    type -> {
-                        ProjectionOf projectionOf = type.getAnnotation(ProjectionOf.class);
-                        if (projectionOf != null) {
-                            return projectionOf.value().getTypeName();
-                        }
-                        ExpansionOf expansionOf = type.getAnnotation(ExpansionOf.class);
-                        if (expansionOf != null) {
-                            return expansionOf.value().getTypeName();
-                        }
-                        throw new IllegalStateException("Unexpected delegation: " + type.getTypeName());
-                    },
-                    Function.identity()
-            )) : Collections.emptyMap();
             return new StdTypeResolverBuilder().init(JsonTypeInfo.Value.construct(
                     JsonTypeInfo.Id.CUSTOM,
                     JsonTypeInfo.As.PROPERTY,
                     polymorphism,
-                    ac.hasAnnotation(TemplatedBy.class) ? ac.getAnnotation(TemplatedBy.class).value() : null,
+                    toDeserializationType(ac),
                     false,
                     false
-            ), new TypeIdResolverBase() {
-                @Override
-                public String idFromValue(Object value) {
-                    ProjectionOf projectionOf = value.getClass().getAnnotation(ProjectionOf.class);
-                    if (projectionOf != null) {
-                        return projectionOf.value().getTypeName();
-                    }
-                    ExpansionOf expansionOf = value.getClass().getAnnotation(ExpansionOf.class);
-                    if (expansionOf != null) {
-                        return expansionOf.value().getTypeName();
-                    }
-                    TemplateOf templateOf = value.getClass().getAnnotation(TemplateOf.class);
-                    if (templateOf != null) {
-                        return StructuralTypeModule.TEMPLATE;
-                    }
-                    throw new IllegalStateException("Unknown template instance: " + value);
-                }
-
-                @Override
-                public String idFromValueAndType(Object value, Class<?> suggestedType) {
-                    return idFromValue(value);
-                }
-
-                @Override
-                public JavaType typeFromId(DatabindContext context, String id) {
-                    if (id.equals(StructuralTypeModule.TEMPLATE)) {
-                        return context.constructType(ac.getAnnotation(TemplatedBy.class).value());
-                    }
-                    Class<?> type = values.get(id);
-                    if (type == null) {
-                        throw new IllegalStateException("Cannot resolve type id: " + id + " for " + baseType);
-                    }
-                    return context.constructType(type);
-                }
-
-                @Override
-                public JsonTypeInfo.Id getMechanism() {
-                    return JsonTypeInfo.Id.CUSTOM;
-                }
-            });
+            ), StructuralTypeMetadata.of(ac.getRawType()).getResolver());
         }
         return super.findTypeResolver(config, ac, baseType);
     }
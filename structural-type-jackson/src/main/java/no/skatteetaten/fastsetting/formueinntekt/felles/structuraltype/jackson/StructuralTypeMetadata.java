@@ -0,0 +1,154 @@
+package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.jackson;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DatabindContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.jsontype.impl.TypeIdResolverBase;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api.*;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+class StructuralTypeMetadata {
+
+    private static final ClassValue<StructuralTypeMetadata> METADATA = new ClassValue<>() {
+        @Override
+        protected StructuralTypeMetadata computeValue(Class<?> type) {
+            return new StructuralTypeMetadata(type);
+        }
+    };
+
+    private final Class<?> type;
+
+    private final boolean structural, template;
+
+    private final Map<String, String> enumerations;
+
+    private volatile StructuralTypeIdResolver resolver;
+
+    private StructuralTypeMetadata(Class<?> type) {
+        this.type = type;
+        template = type.isAnnotationPresent(TemplateOf.class);
+        structural = template
+                || type.isAnnotationPresent(CompoundOf.class)
+                || type.isAnnotationPresent(DelegationOf.class)
+                || type.isAnnotationPresent(ExpansionOf.class);
+        if (type.isEnum()) {
+            Map<String, String> names = new HashMap<>();
+            for (Field field : type.getDeclaredFields()) {
+                EnumeratedAs enumeratedAs = field.getAnnotation(EnumeratedAs.class);
+                if (field.isEnumConstant() && enumeratedAs != null) {
+                    names.put(field.getName(), enumeratedAs.value());
+                }
+            }
+            enumerations = names.isEmpty() ? Collections.emptyMap() : names;
+        } else {
+            enumerations = Collections.emptyMap();
+        }
+    }
+
+    static StructuralTypeMetadata of(Class<?> type) {
+        return METADATA.get(type);
+    }
+
+    boolean isStructural() {
+        return structural;
+    }
+
+    boolean isTemplate() {
+        return template;
+    }
+
+    Map<String, String> getEnumerations() {
+        return enumerations;
+    }
+
+    StructuralTypeIdResolver getResolver() {
+        StructuralTypeIdResolver resolver = this.resolver;
+        if (resolver == null) {
+            resolver = new StructuralTypeIdResolver(type);
+            this.resolver = resolver;
+        }
+        return resolver;
+    }
+
+    static class StructuralTypeIdResolver extends TypeIdResolverBase {
+
+        private static final ClassValue<String> IDS = new ClassValue<>() {
+            @Override
+            protected String computeValue(Class<?> type) {
+                return toId(type);
+            }
+        };
+
+        private final Class<?> type;
+
+        private final Map<String, Class<?>> values;
+
+        private StructuralTypeIdResolver(Class<?> type) {
+            this.type = type;
+            values = type.isAnnotationPresent(DelegatedBy.class) ? Arrays.stream(type.getAnnotation(DelegatedBy.class).value()).collect(Collectors.toMap(
+                    delegation -> {
+                        String id = toId(delegation);
+                        if (id == null || id.equals(StructuralTypeModule.TEMPLATE)) {
+                            throw new IllegalStateException("Unexpected delegation: " + delegation.getTypeName());
+                        }
+                        return id;
+                    },
+                    Function.identity()
+            )) : Collections.emptyMap();
+        }
+
+        private static String toId(Class<?> type) {
+            ProjectionOf projectionOf = type.getAnnotation(ProjectionOf.class);
+            if (projectionOf != null) {
+                return projectionOf.value().getTypeName();
+            }
+            ExpansionOf expansionOf = type.getAnnotation(ExpansionOf.class);
+            if (expansionOf != null) {
+                return expansionOf.value().getTypeName();
+            }
+            TemplateOf templateOf = type.getAnnotation(TemplateOf.class);
+            if (templateOf != null) {
+                return StructuralTypeModule.TEMPLATE;
+            }
+            return null;
+        }
+
+        @Override
+        public String idFromValue(Object value) {
+            String id = IDS.get(value.getClass());
+            if (id == null) {
+                throw new IllegalStateException("Unknown template instance: " + value);
+            }
+            return id;
+        }
+
+        @Override
+        public String idFromValueAndType(Object value, Class<?> suggestedType) {
+            return idFromValue(value);
+        }
+
+        @Override
+        public JavaType typeFromId(DatabindContext context, String id) {
+            if (id.equals(StructuralTypeModule.TEMPLATE)) {
+                return context.constructType(type.getAnnotation(TemplatedBy.class).value());
+            }
+            Class<?> value = values.get(id);
+            if (value == null) {
+                throw new IllegalStateException("Cannot resolve type id: " + id + " for " + type.getTypeName());
+            }
+            return context.constructType(value);
+        }
+
+        @Override
+        public JsonTypeInfo.Id getMechanism() {
+            return JsonTypeInfo.Id.CUSTOM;
+        }
+    }
+}
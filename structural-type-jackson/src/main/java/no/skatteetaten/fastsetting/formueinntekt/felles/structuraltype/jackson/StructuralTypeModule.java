@@ -2,12 +2,19 @@ package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.jackson;
 
 import com.fasterxml.jackson.databind.module.SimpleModule;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
 public class StructuralTypeModule extends SimpleModule {
 
     public static final String EXPANSION = "$value", TYPE = "@type", TEMPLATE = "<template>";
 
     private final String expansion, getter, polymorphism;
 
+    private final Set<Class<?>> delegates;
+
     public StructuralTypeModule() {
         this(EXPANSION);
     }
@@ -17,13 +24,14 @@ public class StructuralTypeModule extends SimpleModule {
     }
 
     public StructuralTypeModule(String expansion, String getter) {
-        this(expansion, getter, null);
+        this(expansion, getter, null, Collections.emptySet());
     }
 
-    private StructuralTypeModule(String expansion, String getter, String polymorphism) {
+    private StructuralTypeModule(String expansion, String getter, String polymorphism, Set<Class<?>> delegates) {
         this.expansion = expansion;
         this.getter = getter;
         this.polymorphism = polymorphism;
+        this.delegates = delegates;
     }
 
     public StructuralTypeModule withPolymorphism() {
@@ -31,12 +39,18 @@ public class StructuralTypeModule extends SimpleModule {
     }
 
     public StructuralTypeModule withPolymorphism(String polymorphism) {
-        return new StructuralTypeModule(expansion, getter, polymorphism);
+        return new StructuralTypeModule(expansion, getter, polymorphism, delegates);
+    }
+
+    public StructuralTypeModule withDelegation(Class<?>... delegates) {
+        Set<Class<?>> merged = new HashSet<>(this.delegates);
+        merged.addAll(Arrays.asList(delegates));
+        return new StructuralTypeModule(expansion, getter, polymorphism, merged);
     }
 
     @Override
     public void setupModule(SetupContext context) {
         super.setupModule(context);
-        context.appendAnnotationIntrospector(new StructuralTypeAnnotationIntrospector(expansion, getter, polymorphism));
+        context.appendAnnotationIntrospector(new StructuralTypeAnnotationIntrospector(expansion, getter, polymorphism, delegates));
     }
 }
@@ -0,0 +1,387 @@
+package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.jackson;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api.CompoundOf;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api.PropertyDefinition;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api.TemplatedBy;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api.Trial;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+public class StructuralTypeNodeProjector {
+
+    private final ObjectMapper objectMapper;
+
+    private final ConcurrentMap<Class<?>, Map<Method, Accessor>> accessors = new ConcurrentHashMap<>();
+
+    public StructuralTypeNodeProjector(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public <T> T project(Class<T> structure, ObjectNode node) {
+        if (!structure.isInterface() || !structure.isAnnotationPresent(CompoundOf.class)) {
+            throw new IllegalArgumentException("Not a structure: " + structure.getTypeName());
+        }
+        return structure.cast(Proxy.newProxyInstance(
+                structure.getClassLoader(),
+                new Class<?>[] {structure},
+                new NodeInvocationHandler(structure, node, accessors.computeIfAbsent(structure, this::toAccessors))
+        ));
+    }
+
+    public static Optional<ObjectNode> unproject(Object projection) {
+        if (Proxy.isProxyClass(projection.getClass())) {
+            InvocationHandler handler = Proxy.getInvocationHandler(projection);
+            if (handler instanceof NodeInvocationHandler) {
+                return Optional.of(((NodeInvocationHandler) handler).node);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private Map<Method, Accessor> toAccessors(Class<?> structure) {
+        Map<Method, Accessor> accessors = new HashMap<>();
+        Map<String, Method> methods = new HashMap<>();
+        for (Method method : structure.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers())) {
+                continue;
+            } else if (method.isDefault()) {
+                MethodHandle handle;
+                try {
+                    handle = MethodHandles.privateLookupIn(method.getDeclaringClass(), MethodHandles.lookup())
+                            .unreflectSpecial(method, method.getDeclaringClass());
+                } catch (IllegalAccessException e) {
+                    throw new IllegalArgumentException("Cannot invoke default method " + method, e);
+                }
+                accessors.put(method, (proxy, node, arguments) -> handle.bindTo(proxy)
+                        .invokeWithArguments(arguments == null ? new Object[0] : arguments));
+            } else {
+                methods.putIfAbsent(method.getName() + "/" + method.getParameterCount(), method);
+            }
+        }
+        JavaType type = objectMapper.constructType(structure);
+        for (BeanPropertyDefinition property : objectMapper.getSerializationConfig().introspect(type).findProperties()) {
+            if (property.hasGetter() && !property.getGetter().getAnnotated().isDefault()) {
+                Method getter = property.getGetter().getAnnotated();
+                accessors.put(getter, toReader(property.getName(), getter.getGenericReturnType()));
+                toProperties(property.getName(), getter, methods, accessors);
+            }
+        }
+        for (BeanPropertyDefinition property : objectMapper.getDeserializationConfig().introspect(type).findProperties()) {
+            if (property.hasSetter() && !property.getSetter().getAnnotated().isDefault()) {
+                String name = property.getName();
+                accessors.put(property.getSetter().getAnnotated(), (proxy, node, arguments) -> {
+                    write(node, name, false, arguments[0]);
+                    return null;
+                });
+            }
+        }
+        Accessor hashCode = (proxy, node, arguments) -> node.hashCode(),
+                equals = (proxy, node, arguments) -> proxy == arguments[0] || arguments[0] != null
+                        && structure.isInstance(arguments[0])
+                        && unproject(arguments[0]).map(node::equals).orElse(false);
+        try {
+            accessors.put(Object.class.getMethod("hashCode"), hashCode);
+            accessors.put(Object.class.getMethod("equals", Object.class), equals);
+            accessors.put(Object.class.getMethod("toString"), (proxy, node, arguments) -> structure.getSimpleName() + node);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+        toMethod(methods, "hashCode", Set.class, accessors, hashCode);
+        toMethod(methods, "equals", Map.class, accessors, equals);
+        toMethod(methods, "toString", Set.class, accessors, (proxy, node, arguments) -> {
+            ((StringBuilder) arguments[0]).append(structure.getSimpleName()).append(node);
+            return null;
+        });
+        Method copy = methods.get("copy/0");
+        if (copy != null && copy.getReturnType().isAssignableFrom(structure)) {
+            Accessor template = null;
+            if (structure.isAnnotationPresent(TemplatedBy.class)) {
+                try {
+                    template = accessors.get(structure.getMethod("copyToTemplate"));
+                } catch (NoSuchMethodException ignored) {
+                }
+            }
+            accessors.put(copy, template == null ? (proxy, node, arguments) -> project(structure, node.deepCopy()) : template);
+        }
+        Method delegate = methods.get("delegate/0");
+        if (delegate != null && delegate.getReturnType() == Optional.class) {
+            accessors.put(delegate, (proxy, node, arguments) -> Optional.of(node));
+        }
+        String unsupported = Arrays.stream(structure.getMethods())
+                .filter(method -> !Modifier.isStatic(method.getModifiers()) && !accessors.containsKey(method))
+                .map(Method::getName)
+                .sorted()
+                .collect(Collectors.joining(", "));
+        if (!unsupported.isEmpty()) {
+            throw new IllegalArgumentException("Cannot project " + structure.getTypeName() + " on a JSON node, unsupported methods: " + unsupported);
+        }
+        return accessors;
+    }
+
+    private void toProperties(String name, Method getter, Map<String, Method> methods, Map<Method, Accessor> accessors) {
+        String suffix = getter.getName().startsWith("is") ? getter.getName().substring(2) : getter.getName().substring(3);
+        boolean list = getter.getReturnType() == List.class;
+        Type type = getter.getGenericReturnType() instanceof ParameterizedType
+                ? ((ParameterizedType) getter.getGenericReturnType()).getActualTypeArguments()[0]
+                : getter.getGenericReturnType();
+        Method setter = methods.get((list ? "add" : "set") + suffix + "/1");
+        if (list && setter != null) {
+            accessors.put(setter, (proxy, node, arguments) -> {
+                write(node, name, true, arguments[0]);
+                return null;
+            });
+        }
+        Method trial = methods.get("trial" + suffix + "/1");
+        if (trial != null) {
+            accessors.put(trial, (proxy, node, arguments) -> {
+                try {
+                    write(node, name, list, arguments[0]);
+                    return Trial.of(proxy);
+                } catch (RuntimeException exception) {
+                    return Trial.of(proxy, exception);
+                }
+            });
+        }
+        Method fluent = methods.get("with" + suffix + "/1");
+        if (fluent != null) {
+            accessors.put(fluent, (proxy, node, arguments) -> {
+                if (list && fluent.getParameterTypes()[0].isArray()) {
+                    for (int index = 0; index < Array.getLength(arguments[0]); index++) {
+                        write(node, name, true, Array.get(arguments[0], index));
+                    }
+                } else {
+                    write(node, name, list, arguments[0]);
+                }
+                return proxy;
+            });
+        }
+        Method merge = methods.get("merge" + suffix + "/1");
+        if (merge != null) {
+            accessors.put(merge, (proxy, node, arguments) -> {
+                write(node, name, list, arguments[0]);
+                return null;
+            });
+        }
+        Method factory = methods.get("define" + suffix + "/0");
+        if (factory != null && type instanceof Class<?> && ((Class<?>) type).isAnnotationPresent(CompoundOf.class)) {
+            Class<?> target = (Class<?>) type;
+            accessors.put(factory, (proxy, node, arguments) -> {
+                ObjectNode value = node.objectNode();
+                if (list) {
+                    toArray(node, name).add(value);
+                } else {
+                    node.set(name, value);
+                }
+                return Optional.of(project(target, value));
+            });
+        }
+        Method owner = methods.get("has" + suffix + "/0");
+        if (owner != null && owner.getReturnType() == PropertyDefinition.class) {
+            PropertyDefinition definition;
+            if (list) {
+                definition = PropertyDefinition.LIST;
+            } else if (getter.getReturnType() == Optional.class) {
+                definition = PropertyDefinition.OPTIONAL;
+            } else {
+                definition = PropertyDefinition.SINGLE;
+            }
+            accessors.put(owner, (proxy, node, arguments) -> definition);
+        }
+    }
+
+    private static void toMethod(Map<String, Method> methods, String name, Class<?> checked, Map<Method, Accessor> accessors, Accessor accessor) {
+        methods.values().stream()
+                .filter(method -> method.getName().equals(name)
+                        && method.getParameterCount() > 0
+                        && method.getParameterTypes()[method.getParameterCount() - 1] == checked)
+                .forEach(method -> accessors.put(method, accessor));
+    }
+
+    private void write(ObjectNode node, String name, boolean list, Object value) {
+        if (list) {
+            toArray(node, name).add(value == null ? node.nullNode() : toNode(value));
+        } else if (value == null) {
+            node.remove(name);
+        } else {
+            node.set(name, toNode(value));
+        }
+    }
+
+    private static ArrayNode toArray(ObjectNode node, String name) {
+        JsonNode value = node.get(name);
+        if (value == null || value.isNull()) {
+            return node.putArray(name);
+        } else if (value.isArray()) {
+            return (ArrayNode) value;
+        } else {
+            throw new IllegalStateException("Expected array for " + name + " but found " + value.getNodeType());
+        }
+    }
+
+    private JsonNode toNode(Object value) {
+        return unproject(value).<JsonNode>map(ObjectNode::deepCopy).orElseGet(() -> objectMapper.valueToTree(value));
+    }
+
+    private Accessor toReader(String name, Type type) {
+        if (type instanceof ParameterizedType && ((ParameterizedType) type).getRawType() == Optional.class) {
+            Converter converter = toConverter(((ParameterizedType) type).getActualTypeArguments()[0]);
+            return (proxy, node, arguments) -> {
+                JsonNode value = node.get(name);
+                return value == null || value.isNull() ? Optional.empty() : Optional.ofNullable(converter.convert(value));
+            };
+        } else if (type instanceof ParameterizedType && ((ParameterizedType) type).getRawType() == List.class) {
+            Converter converter = toConverter(((ParameterizedType) type).getActualTypeArguments()[0]);
+            return (proxy, node, arguments) -> {
+                JsonNode value = node.get(name);
+                if (value == null || value.isNull()) {
+                    return Collections.emptyList();
+                } else if (value.isArray()) {
+                    return new NodeList((ArrayNode) value, converter);
+                } else {
+                    throw new IllegalStateException("Expected array for " + name + " but found " + value.getNodeType());
+                }
+            };
+        } else {
+            Converter converter = toConverter(type);
+            Object absent = type instanceof Class<?> && ((Class<?>) type).isPrimitive()
+                    ? Array.get(Array.newInstance((Class<?>) type, 1), 0)
+                    : null;
+            return (proxy, node, arguments) -> {
+                JsonNode value = node.get(name);
+                return value == null || value.isNull() ? absent : converter.convert(value);
+            };
+        }
+    }
+
+    private Converter toConverter(Type type) {
+        if (type instanceof Class<?> && ((Class<?>) type).isInterface() && ((Class<?>) type).isAnnotationPresent(CompoundOf.class)) {
+            Class<?> structure = (Class<?>) type;
+            return value -> {
+                if (!value.isObject()) {
+                    throw new IllegalStateException("Expected object for " + structure.getTypeName() + " but found " + value.getNodeType());
+                }
+                return project(structure, (ObjectNode) value);
+            };
+        }
+        ObjectReader reader = objectMapper.readerFor(objectMapper.constructType(type));
+        return value -> {
+            try {
+                return reader.readValue(value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    @FunctionalInterface
+    private interface Accessor {
+
+        Object apply(Object proxy, ObjectNode node, Object[] arguments) throws Throwable;
+    }
+
+    @FunctionalInterface
+    private interface Converter {
+
+        Object convert(JsonNode value);
+    }
+
+    private class NodeList extends AbstractList<Object> {
+
+        private final ArrayNode node;
+
+        private final Converter converter;
+
+        private NodeList(ArrayNode node, Converter converter) {
+            this.node = node;
+            this.converter = converter;
+        }
+
+        @Override
+        public Object get(int index) {
+            JsonNode value = node.get(index);
+            if (value == null) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", size: " + node.size());
+            }
+            return value.isNull() ? null : converter.convert(value);
+        }
+
+        @Override
+        public Object set(int index, Object element) {
+            Object previous = get(index);
+            node.set(index, element == null ? node.nullNode() : toNode(element));
+            return previous;
+        }
+
+        @Override
+        public void add(int index, Object element) {
+            if (index < 0 || index > node.size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", size: " + node.size());
+            }
+            node.insert(index, element == null ? node.nullNode() : toNode(element));
+        }
+
+        @Override
+        public Object remove(int index) {
+            Object previous = get(index);
+            node.remove(index);
+            return previous;
+        }
+
+        @Override
+        public int size() {
+            return node.size();
+        }
+    }
+
+    private static class NodeInvocationHandler implements InvocationHandler {
+
+        private final Class<?> structure;
+
+        private final ObjectNode node;
+
+        private final Map<Method, Accessor> accessors;
+
+        private NodeInvocationHandler(Class<?> structure, ObjectNode node, Map<Method, Accessor> accessors) {
+            this.structure = structure;
+            this.node = node;
+            this.accessors = accessors;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] arguments) throws Throwable {
+            Accessor accessor = accessors.get(method);
+            if (accessor == null) {
+                throw new UnsupportedOperationException(method + " is not supported by a projection of " + structure.getTypeName());
+            }
+            return accessor.apply(proxy, node, arguments);
+        }
+    }
+}
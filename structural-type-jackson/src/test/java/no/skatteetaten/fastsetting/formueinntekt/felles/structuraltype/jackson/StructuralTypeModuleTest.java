@@ -1,8 +1,13 @@
 package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.jackson;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api.CompoundOf;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.jackson.sample.EnumeratedStructure;
 import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.jackson.sample.ExpansionStructure;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.jackson.sample.NodeStructure;
 import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.jackson.sample.SetterFieldStructure;
 import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.jackson.sample.SimpleStructure;
 import org.junit.Before;
@@ -114,4 +119,100 @@ public class StructuralTypeModuleTest {
         assertThat(structure).isInstanceOf(SimpleStructure.Template.class);
         assertThat(structure.getValue()).isEqualTo("foo");
     }
+
+    @Test
+    public void can_read_structure_as_delegate() throws Exception {
+        SimpleStructure structure = new ObjectMapper()
+                .registerModule(new StructuralTypeModule().withDelegation(SimpleStructure.Delegate.class))
+                .readValue("{\"value\":\"foo\"}", SimpleStructure.class);
+        assertThat(structure).isInstanceOf(SimpleStructure.Projection.class);
+        assertThat(((SimpleStructure.Projection) structure).unwrap().getValue()).isEqualTo("foo");
+    }
+
+    @Test
+    public void can_read_structure_as_delegate_without_type() throws Exception {
+        SimpleStructure structure = new ObjectMapper()
+                .registerModule(new StructuralTypeModule().withPolymorphism().withDelegation(SimpleStructure.Delegate.class))
+                .readValue("{\"value\":\"foo\"}", SimpleStructure.class);
+        assertThat(structure).isInstanceOf(SimpleStructure.Projection.class);
+        assertThat(((SimpleStructure.Projection) structure).unwrap().getValue()).isEqualTo("foo");
+    }
+
+    @Test
+    public void can_write_and_read_enumerated_name() throws Exception {
+        assertThat(objectMapper.writeValueAsString(EnumeratedStructure.FOO)).isEqualTo("\"foo\"");
+        assertThat(objectMapper.writeValueAsString(EnumeratedStructure.BAR)).isEqualTo("\"BAR\"");
+        assertThat(objectMapper.readValue("\"foo\"", EnumeratedStructure.class)).isEqualTo(EnumeratedStructure.FOO);
+    }
+
+    @Test
+    public void can_share_metadata_between_mappers() throws Exception {
+        ObjectMapper other = new ObjectMapper().registerModule(new StructuralTypeModule().withPolymorphism());
+        SimpleStructure structure = other.readValue("{\"@type\":\""
+                + SimpleStructure.Delegate.class.getTypeName()
+                + "\",\"value\":\"foo\"}", SimpleStructure.class);
+        assertThat(structure).isInstanceOf(SimpleStructure.Projection.class);
+        assertThat(objectMapper.writeValueAsString(structure)).isEqualTo(other.writeValueAsString(structure));
+    }
+
+    @Test
+    public void can_project_node() throws Exception {
+        ObjectNode node = (ObjectNode) objectMapper.readTree("{\"name\":\"foo\",\"count\":3,"
+                + "\"nested\":{\"value\":\"bar\"},"
+                + "\"items\":[{\"value\":\"qux\"},null]}");
+        NodeStructure structure = new StructuralTypeNodeProjector(objectMapper).project(NodeStructure.class, node);
+        assertThat(structure.getName()).isEqualTo("foo");
+        assertThat(structure.getCount()).isEqualTo(3);
+        assertThat(structure.getTotal()).isEmpty();
+        assertThat(structure.getNested().getValue()).isEqualTo("bar");
+        assertThat(structure.getItems()).hasSize(2);
+        assertThat(structure.getItems().get(0).getValue()).isEqualTo("qux");
+        assertThat(structure.getItems().get(1)).isNull();
+        assertThat(structure.getDescription()).isEqualTo("foo (3)");
+        assertThat(StructuralTypeNodeProjector.unproject(structure)).contains(node);
+    }
+
+    @Test
+    public void can_project_node_with_setter() throws Exception {
+        ObjectNode node = objectMapper.createObjectNode();
+        StructuralTypeNodeProjector projector = new StructuralTypeNodeProjector(objectMapper);
+        NodeStructure structure = projector.project(NodeStructure.class, node);
+        assertThat(structure.getName()).isNull();
+        assertThat(structure.getCount()).isZero();
+        assertThat(structure.getItems()).isEmpty();
+        structure.setName("foo");
+        structure.setNested(projector.project(SimpleStructure.class, (ObjectNode) objectMapper.readTree("{\"value\":\"bar\"}")));
+        structure.getNested().setValue("qux");
+        assertThat(objectMapper.writeValueAsString(node)).isEqualTo("{\"name\":\"foo\",\"nested\":{\"value\":\"qux\"}}");
+    }
+
+    @Test
+    public void cannot_project_node_with_unsupported_method() {
+        assertThatThrownBy(() -> new StructuralTypeNodeProjector(objectMapper).project(UnsupportedStructure.class, objectMapper.createObjectNode()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("reset");
+    }
+
+    @Test
+    public void can_project_node_with_list_modification() throws Exception {
+        ObjectNode node = (ObjectNode) objectMapper.readTree("{\"items\":[{\"value\":\"foo\"}]}");
+        StructuralTypeNodeProjector projector = new StructuralTypeNodeProjector(objectMapper);
+        NodeStructure structure = projector.project(NodeStructure.class, node);
+        SimpleStructure.Template template = new SimpleStructure.Template();
+        template.setValue("bar");
+        structure.getItems().add(template);
+        assertThat(structure.getItems().set(0, projector.project(SimpleStructure.class, (ObjectNode) objectMapper.readTree("{\"value\":\"qux\"}")))
+                .getValue()).isEqualTo("foo");
+        assertThat(objectMapper.writeValueAsString(node)).isEqualTo("{\"items\":[{\"value\":\"qux\"},{\"@type\":\"<template>\",\"value\":\"bar\"}]}");
+        assertThat(structure.getItems().remove(0).getValue()).isEqualTo("qux");
+        assertThat(objectMapper.writeValueAsString(node)).isEqualTo("{\"items\":[{\"@type\":\"<template>\",\"value\":\"bar\"}]}");
+    }
+
+    @CompoundOf({})
+    interface UnsupportedStructure {
+
+        String getName();
+
+        void reset();
+    }
 }
@@ -0,0 +1,11 @@
+package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.jackson.sample;
+
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api.EnumeratedAs;
+
+public enum EnumeratedStructure {
+
+    @EnumeratedAs("foo")
+    FOO,
+
+    BAR
+}
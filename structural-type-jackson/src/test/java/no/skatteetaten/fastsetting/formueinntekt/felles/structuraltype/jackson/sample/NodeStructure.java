@@ -0,0 +1,28 @@
+package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.jackson.sample;
+
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api.*;
+
+import java.util.List;
+import java.util.Optional;
+
+@CompoundOf({})
+public interface NodeStructure {
+
+    String getName();
+
+    void setName(String name);
+
+    int getCount();
+
+    Optional<Long> getTotal();
+
+    SimpleStructure getNested();
+
+    void setNested(SimpleStructure nested);
+
+    List<SimpleStructure> getItems();
+
+    default String getDescription() {
+        return getName() + " (" + getCount() + ")";
+    }
+}
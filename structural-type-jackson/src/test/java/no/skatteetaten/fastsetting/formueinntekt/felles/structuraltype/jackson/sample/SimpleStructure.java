@@ -31,7 +31,23 @@ public interface SimpleStructure {
     @DelegationOf(SimpleStructure.class)
     class Projection implements SimpleStructure {
 
-        private Delegate delegate = new Delegate();
+        private final Delegate delegate;
+
+        public Projection() {
+            this(new Delegate());
+        }
+
+        public Projection(Delegate delegate) {
+            this.delegate = delegate;
+        }
+
+        public static Projection wrap(Delegate delegate) {
+            return delegate == null ? null : new Projection(delegate);
+        }
+
+        public Delegate unwrap() {
+            return delegate;
+        }
 
         @Override
         public String getValue() {
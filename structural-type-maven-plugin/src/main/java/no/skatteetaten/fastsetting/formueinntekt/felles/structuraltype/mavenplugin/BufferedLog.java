@@ -0,0 +1,107 @@
+package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.mavenplugin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.apache.maven.plugin.logging.Log;
+
+class BufferedLog implements Log {
+
+    private final Log delegate;
+
+    private final List<Consumer<Log>> entries = new ArrayList<>();
+
+    BufferedLog(Log delegate) {
+        this.delegate = delegate;
+    }
+
+    synchronized void flush() {
+        entries.forEach(entry -> entry.accept(delegate));
+        entries.clear();
+    }
+
+    private synchronized void add(Consumer<Log> entry) {
+        entries.add(entry);
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return delegate.isDebugEnabled();
+    }
+
+    @Override
+    public void debug(CharSequence content) {
+        add(log -> log.debug(content));
+    }
+
+    @Override
+    public void debug(CharSequence content, Throwable error) {
+        add(log -> log.debug(content, error));
+    }
+
+    @Override
+    public void debug(Throwable error) {
+        add(log -> log.debug(error));
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return delegate.isInfoEnabled();
+    }
+
+    @Override
+    public void info(CharSequence content) {
+        add(log -> log.info(content));
+    }
+
+    @Override
+    public void info(CharSequence content, Throwable error) {
+        add(log -> log.info(content, error));
+    }
+
+    @Override
+    public void info(Throwable error) {
+        add(log -> log.info(error));
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return delegate.isWarnEnabled();
+    }
+
+    @Override
+    public void warn(CharSequence content) {
+        add(log -> log.warn(content));
+    }
+
+    @Override
+    public void warn(CharSequence content, Throwable error) {
+        add(log -> log.warn(content, error));
+    }
+
+    @Override
+    public void warn(Throwable error) {
+        add(log -> log.warn(error));
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return delegate.isErrorEnabled();
+    }
+
+    @Override
+    public void error(CharSequence content) {
+        add(log -> log.error(content));
+    }
+
+    @Override
+    public void error(CharSequence content, Throwable error) {
+        add(log -> log.error(content, error));
+    }
+
+    @Override
+    public void error(Throwable error) {
+        add(log -> log.error(error));
+    }
+}
@@ -0,0 +1,260 @@
+package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.mavenplugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.squareup.javapoet.JavaFile;
+
+class StructuralTypeCache {
+
+    private static final String FINGERPRINT = "fingerprint", SOURCES = "sources", CLASSES = "classes";
+
+    private final Path root;
+
+    private final ClassLoader classLoader;
+
+    private final byte[] configuration;
+
+    private final Collection<? extends Class<?>> predefinitions;
+
+    StructuralTypeCache(
+        File root, ClassLoader classLoader,
+        String configuration, Collection<? extends Class<?>> predefinitions
+    ) {
+        this.root = root.toPath();
+        this.classLoader = classLoader;
+        this.configuration = configuration.getBytes(StandardCharsets.UTF_8);
+        this.predefinitions = predefinitions;
+    }
+
+    String fingerprint(List<Class<?>> types) throws IOException {
+        Set<Class<?>> classes = new HashSet<>();
+        Set<Type> visited = new HashSet<>();
+        types.forEach(type -> collect(type, classes, visited));
+        classes.addAll(predefinitions);
+        MessageDigest digest = digest();
+        digest.update(configuration);
+        for (Class<?> type : types) {
+            digest.update(type.getName().getBytes(StandardCharsets.UTF_8));
+        }
+        for (Class<?> type : classes.stream().sorted(Comparator.comparing(Class::getName)).collect(Collectors.toList())) {
+            digest.update(type.getName().getBytes(StandardCharsets.UTF_8));
+            try (InputStream inputStream = classLoader.getResourceAsStream(type.getName().replace('.', '/') + ".class")) {
+                if (inputStream == null) {
+                    throw new IOException("Cannot locate class file of " + type.getName());
+                }
+                digest.update(inputStream.readAllBytes());
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    static String artifacts(Class<?>... types) throws IOException {
+        Set<Path> locations = new LinkedHashSet<>();
+        for (Class<?> type : types) {
+            CodeSource source = type.getProtectionDomain().getCodeSource();
+            if (source == null || source.getLocation() == null) {
+                throw new IOException("Cannot locate artifact of " + type.getName());
+            }
+            try {
+                locations.add(Paths.get(source.getLocation().toURI()));
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                throw new IOException("Cannot resolve artifact of " + type.getName(), e);
+            }
+        }
+        MessageDigest digest = digest();
+        for (Path location : locations) {
+            if (Files.isDirectory(location)) {
+                try (Stream<Path> stream = Files.walk(location)) {
+                    for (Path path : stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList())) {
+                        digest.update(location.relativize(path).toString().getBytes(StandardCharsets.UTF_8));
+                        digest.update(Files.readAllBytes(path));
+                    }
+                }
+            } else {
+                digest.update(Files.readAllBytes(location));
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    boolean isCurrent(List<String> definition, String fingerprint) throws IOException {
+        Path marker = root.resolve(key(definition)).resolve(FINGERPRINT);
+        return Files.isRegularFile(marker) && Files.readString(marker, StandardCharsets.UTF_8).equals(fingerprint);
+    }
+
+    void restore(List<String> definition, File sources, File classes) throws IOException {
+        Path folder = root.resolve(key(definition));
+        copy(folder.resolve(SOURCES), sources.toPath());
+        copy(folder.resolve(CLASSES), classes.toPath());
+    }
+
+    void store(
+        List<String> definition, String fingerprint,
+        Collection<JavaFile> sources, Map<String, byte[]> classes
+    ) throws IOException {
+        Path folder = root.resolve(key(definition));
+        if (Files.exists(folder)) {
+            try (Stream<Path> stream = Files.walk(folder)) {
+                for (Path path : stream.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                    Files.delete(path);
+                }
+            }
+        }
+        Files.createDirectories(folder.resolve(SOURCES));
+        for (JavaFile source : sources) {
+            source.writeTo(folder.resolve(SOURCES));
+        }
+        for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+            Path file = folder.resolve(CLASSES).resolve(entry.getKey().replace('.', '/') + ".class");
+            Files.createDirectories(file.getParent());
+            Files.write(file, entry.getValue());
+        }
+        Files.writeString(folder.resolve(FINGERPRINT), fingerprint, StandardCharsets.UTF_8);
+    }
+
+    private void collect(Type type, Set<Class<?>> classes, Set<Type> visited) {
+        if (!visited.add(type)) {
+            return;
+        }
+        if (type instanceof Class<?>) {
+            Class<?> current = (Class<?>) type;
+            while (current.isArray()) {
+                current = current.getComponentType();
+            }
+            if (current.getClassLoader() != classLoader || !classes.add(current)) {
+                return;
+            }
+            if (current.getGenericSuperclass() != null) {
+                collect(current.getGenericSuperclass(), classes, visited);
+            }
+            for (Type value : current.getGenericInterfaces()) {
+                collect(value, classes, visited);
+            }
+            if (current.getEnclosingClass() != null) {
+                collect(current.getEnclosingClass(), classes, visited);
+            }
+            for (Class<?> value : current.getDeclaredClasses()) {
+                collect(value, classes, visited);
+            }
+            annotations(current, classes, visited);
+            for (Field field : current.getDeclaredFields()) {
+                collect(field.getGenericType(), classes, visited);
+                annotations(field, classes, visited);
+            }
+            for (Method method : current.getDeclaredMethods()) {
+                collect(method.getGenericReturnType(), classes, visited);
+                for (Type value : method.getGenericParameterTypes()) {
+                    collect(value, classes, visited);
+                }
+                annotations(method, classes, visited);
+            }
+        } else if (type instanceof ParameterizedType) {
+            collect(((ParameterizedType) type).getRawType(), classes, visited);
+            for (Type value : ((ParameterizedType) type).getActualTypeArguments()) {
+                collect(value, classes, visited);
+            }
+        } else if (type instanceof GenericArrayType) {
+            collect(((GenericArrayType) type).getGenericComponentType(), classes, visited);
+        } else if (type instanceof WildcardType) {
+            for (Type value : ((WildcardType) type).getUpperBounds()) {
+                collect(value, classes, visited);
+            }
+            for (Type value : ((WildcardType) type).getLowerBounds()) {
+                collect(value, classes, visited);
+            }
+        } else if (type instanceof TypeVariable<?>) {
+            for (Type value : ((TypeVariable<?>) type).getBounds()) {
+                collect(value, classes, visited);
+            }
+        }
+    }
+
+    private void annotations(AnnotatedElement element, Set<Class<?>> classes, Set<Type> visited) {
+        for (Annotation annotation : element.getDeclaredAnnotations()) {
+            annotation(annotation, classes, visited);
+        }
+    }
+
+    private void annotation(Annotation annotation, Set<Class<?>> classes, Set<Type> visited) {
+        for (Method method : annotation.annotationType().getDeclaredMethods()) {
+            if (method.getParameterCount() > 0) {
+                continue;
+            }
+            Object value;
+            try {
+                value = method.invoke(annotation);
+            } catch (Exception ignored) {
+                continue;
+            }
+            if (value instanceof Class<?>) {
+                collect((Class<?>) value, classes, visited);
+            } else if (value instanceof Class<?>[]) {
+                for (Class<?> type : (Class<?>[]) value) {
+                    collect(type, classes, visited);
+                }
+            } else if (value instanceof Annotation) {
+                annotation((Annotation) value, classes, visited);
+            } else if (value instanceof Annotation[]) {
+                for (Annotation nested : (Annotation[]) value) {
+                    annotation(nested, classes, visited);
+                }
+            }
+        }
+    }
+
+    private static void copy(Path source, Path target) throws IOException {
+        if (!Files.isDirectory(source)) {
+            return;
+        }
+        try (Stream<Path> stream = Files.walk(source)) {
+            for (Path path : stream.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                Path file = target.resolve(source.relativize(path).toString());
+                Files.createDirectories(file.getParent());
+                Files.copy(path, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    private static String key(List<String> definition) {
+        return toHex(digest().digest(String.join("\n", definition).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte value : bytes) {
+            builder.append(Character.forDigit((value >> 4) & 0xF, 16)).append(Character.forDigit(value & 0xF, 16));
+        }
+        return builder.toString();
+    }
+}
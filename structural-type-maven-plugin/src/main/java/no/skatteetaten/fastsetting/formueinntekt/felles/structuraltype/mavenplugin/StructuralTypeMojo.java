@@ -11,6 +11,10 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.BiPredicate;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -23,6 +27,7 @@ import com.squareup.javapoet.JavaFile;
 import io.github.classgraph.ClassGraph;
 import io.github.classgraph.ClassInfo;
 import io.github.classgraph.ScanResult;
+import javax.tools.Diagnostic;
 import javax.tools.FileObject;
 import javax.tools.ForwardingJavaFileManager;
 import javax.tools.JavaCompiler;
@@ -38,6 +43,7 @@ import org.apache.maven.artifact.DependencyResolutionRequiredException;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
@@ -98,6 +104,33 @@ public class StructuralTypeMojo extends AbstractMojo {
     @Parameter(required = true, defaultValue = "false")
     public boolean exceptionOnEmptySetter;
 
+    @Parameter(required = true, defaultValue = "false")
+    public boolean nullableAccessors;
+
+    @Parameter(required = true, defaultValue = "false")
+    public boolean cachedListProjections;
+
+    @Parameter(required = true, defaultValue = "false")
+    public boolean cachedListConversions;
+
+    @Parameter(required = true, defaultValue = "false")
+    public boolean iterativeCopies;
+
+    @Parameter(required = true, defaultValue = "false")
+    public boolean typeDispatch;
+
+    @Parameter(required = true, defaultValue = "false")
+    public boolean finalClasses;
+
+    @Parameter(required = true, defaultValue = "2000")
+    public int methodSizeLimit;
+
+    @Parameter
+    public String jacksonModule;
+
+    @Parameter(required = true, defaultValue = "false")
+    public boolean mapProjections;
+
     @Parameter
     public List<NormalizationDefinition> normalizations = Collections.emptyList();
 
@@ -107,6 +140,21 @@ public class StructuralTypeMojo extends AbstractMojo {
     @Parameter
     public List<NamingDefinition> namings;
 
+    @Parameter(required = true, defaultValue = "false")
+    public boolean incremental;
+
+    @Parameter(required = true, defaultValue = "false")
+    public boolean batch;
+
+    @Parameter(required = true, defaultValue = "1")
+    public int threads;
+
+    @Parameter(required = true, defaultValue = "${project.build.directory}/structural-type-cache")
+    public String cache;
+
+    @Parameter(defaultValue = "${plugin.version}", readonly = true)
+    public String version;
+
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
         JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
@@ -196,6 +244,28 @@ public class StructuralTypeMojo extends AbstractMojo {
                     .toArray(Function[]::new))
                 .withPredefinitions(structures.toArray(Class<?>[]::new))
                 .withExceptionOnEmptySetter(exceptionOnEmptySetter)
+                .withProperties(Arrays.stream(PropertyGeneration.values())
+                    .filter(generation -> nullableAccessors || generation != PropertyGeneration.NULLABLE)
+                    .toArray(PropertyGeneration[]::new))
+                .withFeatures(Arrays.stream(FeatureGeneration.values()).filter(generation -> {
+                    switch (generation) {
+                    case MEMOIZED_BRANCHES:
+                    case MEMOIZED_CONVERSIONS:
+                        return false;
+                    case CACHED_LIST_PROJECTIONS:
+                        return cachedListProjections;
+                    case CACHED_LIST_CONVERSIONS:
+                        return cachedListConversions;
+                    default:
+                        return true;
+                    }
+                }).toArray(FeatureGeneration[]::new))
+                .withIterativeCopies(iterativeCopies)
+                .withTypeDispatch(typeDispatch)
+                .withFinalClasses(finalClasses)
+                .withMethodSizeLimit(methodSizeLimit)
+                .withJacksonModule(jacksonModule)
+                .withMapProjections(mapProjections)
                 .withCondition((type, property) -> exclusions.stream().noneMatch(exclusion -> exclusion.test(type, property)))
                 .withNamingStrategy(DecoratingNamingStrategy.withDuplicationResolution(DecoratingNamingStrategy.withReplacements(
                     new PrioritizingNamingStrategy(
@@ -258,13 +328,6 @@ public class StructuralTypeMojo extends AbstractMojo {
                 }
                 interfacesByName.put(entry.getKey(), resolved);
             }
-            structuralType = structuralType.withInterfaceResolver((structure, components) -> {
-                List<Class<?>> resolution = interfacesByName.getOrDefault(structure.toString(), Collections.emptyList());
-                if (!resolution.isEmpty()) {
-                    getLog().debug("Implementing additional interfaces " + resolution + " for " + structure);
-                }
-                return resolution;
-            });
             getLog().debug("Resolved additional interfaces");
             getLog().debug("Resolving property translations");
             Map<Class<?>, Map<String, String>> translationByClass = new HashMap<>();
@@ -284,66 +347,165 @@ public class StructuralTypeMojo extends AbstractMojo {
                 .getOrDefault(type, Collections.emptyMap())
                 .getOrDefault(property, property)));
             getLog().debug("Resolved property translations");
+            String configuration = null;
+            if (incremental) {
+                try {
+                    configuration = toConfiguration(structures);
+                } catch (IOException e) {
+                    getLog().warn("Could not fingerprint the structural type generator, regenerating all definitions", e);
+                }
+            }
+            StructuralTypeCache cache;
+            if (configuration != null) {
+                cache = new StructuralTypeCache(new File(this.cache), classLoader, configuration, structures);
+                getLog().debug("Using incremental cache in " + this.cache);
+            } else {
+                cache = null;
+            }
+            List<Compilation> compilations = new ArrayList<>();
+            Map<ClassName, Compilation> owners = new HashMap<>();
+            List<StructuralTypeDefinition> included = new ArrayList<>();
             for (StructuralTypeDefinition definition : definitions) {
                 if (definition.types.isEmpty()) {
                     getLog().warn("Skipping definition without types.");
-                    continue;
+                } else {
+                    included.add(definition);
                 }
-                getLog().info("Creating structural types for:\n - " + String.join("\n - ", definition.types));
-                List<Class<?>> types = new ArrayList<>(definition.types.size());
-                for (String type : definition.types) {
-                    try {
-                        types.add(Class.forName(type, true, classLoader));
-                    } catch (ClassNotFoundException e) {
-                        throw new MojoFailureException("Could not find class on class path: " + type, e);
+            }
+            StructuralType resolved = structuralType;
+            List<Compilation> results = new ArrayList<>();
+            if (threads > 1 && included.size() > 1) {
+                getLog().info("Processing " + included.size() + " definitions using " + threads + " threads");
+                ExecutorService executorService = Executors.newFixedThreadPool(Math.min(threads, included.size()));
+                try {
+                    List<BufferedLog> logs = new ArrayList<>();
+                    List<Future<Compilation>> futures = new ArrayList<>();
+                    for (StructuralTypeDefinition definition : included) {
+                        BufferedLog log = new BufferedLog(getLog());
+                        logs.add(log);
+                        futures.add(executorService.submit(() -> process(
+                            definition, log, resolved, interfacesByName,
+                            classLoader, cache, compiler, elements
+                        )));
+                    }
+                    for (int index = 0; index < futures.size(); index++) {
+                        Compilation result;
+                        try {
+                            result = futures.get(index).get();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new MojoExecutionException("Interrupted while creating structural types", e);
+                        } catch (ExecutionException e) {
+                            logs.get(index).flush();
+                            if (e.getCause() instanceof MojoFailureException) {
+                                throw (MojoFailureException) e.getCause();
+                            } else if (e.getCause() instanceof MojoExecutionException) {
+                                throw (MojoExecutionException) e.getCause();
+                            } else if (e.getCause() instanceof RuntimeException) {
+                                throw (RuntimeException) e.getCause();
+                            } else if (e.getCause() instanceof Error) {
+                                throw (Error) e.getCause();
+                            }
+                            throw new MojoExecutionException("Failed to create structural types for " + included.get(index).types, e.getCause());
+                        }
+                        try {
+                            complete(result, sources, classes, cache);
+                        } finally {
+                            logs.get(index).flush();
+                        }
+                        results.add(result);
                     }
+                } finally {
+                    executorService.shutdownNow();
                 }
-                getLog().debug("Resolved all input classes for structural types");
-                Map<ClassName, JavaFile> result = structuralType.make(types);
-                if (result.isEmpty()) {
-                    getLog().warn("Did not create any structural types since all types are predefined");
-                    return;
+            } else {
+                for (StructuralTypeDefinition definition : included) {
+                    Compilation result = process(
+                        definition, getLog(), resolved, interfacesByName,
+                        classLoader, cache, compiler, elements
+                    );
+                    complete(result, sources, classes, cache);
+                    results.add(result);
                 }
-                for (Map.Entry<ClassName, JavaFile> entry : result.entrySet()) {
-                    try {
-                        entry.getValue().writeTo(sources);
-                    } catch (IOException e) {
-                        throw new MojoExecutionException("Could not write class " + entry.getKey(), e);
+            }
+            if (batch) {
+                for (Compilation compilation : results) {
+                    if (compilation.restored || compilation.files.isEmpty()) {
+                        continue;
+                    }
+                    for (ClassName name : compilation.files.keySet()) {
+                        Compilation previous = owners.putIfAbsent(name, compilation);
+                        if (previous != null) {
+                            throw new MojoFailureException("Cannot compile " + name + " of " + compilation.definition.types
+                                + " in batch since it is also created by " + previous.definition.types);
+                        }
+                    }
+                    compilations.add(compilation);
+                }
+            }
+            if (!compilations.isEmpty()) {
+                getLog().info("Compiling structural types of " + compilations.size() + " definitions in a single batch");
+                Map<JavaFileObject, Compilation> origins = new LinkedHashMap<>();
+                for (Compilation compilation : compilations) {
+                    for (JavaFile file : compilation.files.values()) {
+                        origins.put(file.toJavaFileObject(), compilation);
                     }
                 }
-                getLog().debug("Successfully wrote structural types sources to " + sources.getAbsolutePath());
                 Map<String, InMemoryJavaFileObject> targets = new HashMap<>();
+                Map<Compilation, List<String>> errors = new LinkedHashMap<>();
                 try (JavaFileManager manager = new CapturingFileManager(
                     compiler.getStandardFileManager(null, null, null),
                     targets
                 )) {
                     if (!compiler.getTask(
                         new ConsumingWriter(getLog()::debug), manager,
-                        null,
+                        diagnostic -> {
+                            Compilation compilation = origins.get(diagnostic.getSource());
+                            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                                errors.computeIfAbsent(compilation, ignored -> new ArrayList<>()).add(diagnostic.toString());
+                            } else {
+                                getLog().debug((compilation == null ? "" : compilation.definition.types + ": ") + diagnostic);
+                            }
+                        },
                         List.of("-classpath", String.join(File.pathSeparator, elements)),
                         null,
-                        result.values().stream().map(JavaFile::toJavaFileObject).collect(Collectors.toList())
+                        origins.keySet()
                     ).call()) {
+                        List<List<String>> failures = new ArrayList<>();
+                        for (Compilation compilation : compilations) {
+                            List<String> messages = errors.get(compilation);
+                            if (messages != null) {
+                                getLog().error("Failed to compile structural types for " + compilation.definition.types + ":\n" + String.join("\n", messages));
+                                failures.add(compilation.definition.types);
+                            }
+                        }
+                        if (errors.containsKey(null)) {
+                            getLog().error("Failed to compile structural types:\n" + String.join("\n", errors.get(null)));
+                        }
                         throw new MojoFailureException("Failed to compile structural types for "
-                            + definition.types
+                            + (failures.isEmpty() ? compilations.stream().map(compilation -> compilation.definition.types).collect(Collectors.toList()) : failures)
                             + " - did you remember to include the API module in the dependencies?");
                     }
                 } catch (IOException e) {
                     throw new MojoFailureException("Could not compile classes", e);
                 }
                 getLog().debug("Successfully compiled structural types");
-                for (Map.Entry<String, InMemoryJavaFileObject> entry : targets.entrySet()) {
-                    File file = new File(classes, entry.getKey().replace('.', '/') + ".class");
-                    if (!file.getParentFile().mkdirs() && !file.getParentFile().isDirectory()) {
-                        throw new MojoExecutionException("Cannot create folder: " + file.getParent());
+                write(classes, targets.values());
+                Map<Compilation, List<InMemoryJavaFileObject>> compiled = new HashMap<>();
+                for (InMemoryJavaFileObject target : targets.values()) {
+                    Compilation compilation = origins.get(target.getSibling());
+                    if (compilation == null) {
+                        throw new MojoExecutionException("Cannot attribute compiled class to a definition: " + target.getName());
                     }
-                    try (FileOutputStream outputStream = new FileOutputStream(file)) {
-                        outputStream.write(entry.getValue().toByteArray());
-                    } catch (IOException e) {
-                        throw new MojoFailureException("Could not write class file for " + entry.getKey(), e);
+                    compiled.computeIfAbsent(compilation, ignored -> new ArrayList<>()).add(target);
+                }
+                for (Compilation compilation : compilations) {
+                    List<InMemoryJavaFileObject> values = compiled.getOrDefault(compilation, Collections.emptyList());
+                    if (compilation.fingerprint != null) {
+                        store(cache, compilation.definition, compilation.fingerprint, compilation.files, values);
                     }
+                    getLog().info("Successfully wrote structural types for " + compilation.definition.types + ": " + values.size() + " source files compiled");
                 }
-                getLog().info("Successfully wrote structural types: " + targets.size() + " source files compiled");
             }
         } catch (IOException e) {
             throw new MojoFailureException("Failed to close class loader", e);
@@ -355,6 +517,179 @@ public class StructuralTypeMojo extends AbstractMojo {
         }
     }
 
+    private Compilation process(
+        StructuralTypeDefinition definition, Log log,
+        StructuralType structuralType, Map<String, List<Class<?>>> interfacesByName,
+        ClassLoader classLoader, StructuralTypeCache cache,
+        JavaCompiler compiler, List<String> elements
+    ) throws MojoExecutionException, MojoFailureException {
+        log.info("Creating structural types for:\n - " + String.join("\n - ", definition.types));
+        List<Class<?>> types = new ArrayList<>(definition.types.size());
+        for (String type : definition.types) {
+            try {
+                types.add(Class.forName(type, true, classLoader));
+            } catch (ClassNotFoundException e) {
+                throw new MojoFailureException("Could not find class on class path: " + type, e);
+            }
+        }
+        log.debug("Resolved all input classes for structural types");
+        String fingerprint = null;
+        if (cache != null) {
+            try {
+                fingerprint = cache.fingerprint(types);
+                if (cache.isCurrent(definition.types, fingerprint)) {
+                    log.debug("Cache hit for " + definition.types);
+                    return new Compilation(definition, fingerprint, Collections.emptyMap(), null, true, log);
+                }
+            } catch (IOException | RuntimeException | LinkageError e) {
+                log.warn("Could not resolve structural types from cache, regenerating", e);
+                fingerprint = null;
+            }
+            log.debug("Cache miss for " + definition.types);
+        }
+        Map<ClassName, JavaFile> result = structuralType.withInterfaceResolver((structure, components) -> {
+            List<Class<?>> resolution = interfacesByName.getOrDefault(structure.toString(), Collections.emptyList());
+            if (!resolution.isEmpty()) {
+                log.debug("Implementing additional interfaces " + resolution + " for " + structure);
+            }
+            return resolution;
+        }).make(types);
+        if (result.isEmpty()) {
+            log.warn("Did not create any structural types since all types are predefined");
+            return new Compilation(definition, fingerprint, result, null, false, log);
+        } else if (batch) {
+            log.debug("Deferring compilation of structural types to batch");
+            return new Compilation(definition, fingerprint, result, null, false, log);
+        }
+        Map<String, InMemoryJavaFileObject> targets = new HashMap<>();
+        try (JavaFileManager manager = new CapturingFileManager(
+            compiler.getStandardFileManager(null, null, null),
+            targets
+        )) {
+            if (!compiler.getTask(
+                new ConsumingWriter(log::debug), manager,
+                null,
+                List.of("-classpath", String.join(File.pathSeparator, elements)),
+                null,
+                result.values().stream().map(JavaFile::toJavaFileObject).collect(Collectors.toList())
+            ).call()) {
+                throw new MojoFailureException("Failed to compile structural types for "
+                    + definition.types
+                    + " - did you remember to include the API module in the dependencies?");
+            }
+        } catch (IOException e) {
+            throw new MojoFailureException("Could not compile classes", e);
+        }
+        log.debug("Successfully compiled structural types");
+        return new Compilation(definition, fingerprint, result, targets.values(), false, log);
+    }
+
+    private void complete(
+        Compilation compilation, File sources, File classes, StructuralTypeCache cache
+    ) throws MojoExecutionException, MojoFailureException {
+        if (compilation.restored) {
+            try {
+                cache.restore(compilation.definition.types, sources, classes);
+            } catch (IOException e) {
+                throw new MojoExecutionException("Could not restore structural types from cache for " + compilation.definition.types, e);
+            }
+            compilation.log.info("Restored structural types from cache since input classes and configuration are unchanged");
+            return;
+        } else if (compilation.files.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<ClassName, JavaFile> entry : compilation.files.entrySet()) {
+            try {
+                entry.getValue().writeTo(sources);
+            } catch (IOException e) {
+                throw new MojoExecutionException("Could not write class " + entry.getKey(), e);
+            }
+        }
+        compilation.log.debug("Successfully wrote structural types sources to " + sources.getAbsolutePath());
+        if (compilation.targets != null) {
+            write(classes, compilation.targets);
+            if (compilation.fingerprint != null) {
+                store(cache, compilation.definition, compilation.fingerprint, compilation.files, compilation.targets);
+            }
+            compilation.log.info("Successfully wrote structural types: " + compilation.targets.size() + " source files compiled");
+        }
+    }
+
+    private static void write(File classes, Collection<InMemoryJavaFileObject> targets) throws MojoExecutionException, MojoFailureException {
+        for (InMemoryJavaFileObject target : targets) {
+            File file = new File(classes, target.getName().replace('.', '/') + ".class");
+            if (!file.getParentFile().mkdirs() && !file.getParentFile().isDirectory()) {
+                throw new MojoExecutionException("Cannot create folder: " + file.getParent());
+            }
+            try (FileOutputStream outputStream = new FileOutputStream(file)) {
+                outputStream.write(target.toByteArray());
+            } catch (IOException e) {
+                throw new MojoFailureException("Could not write class file for " + target.getName(), e);
+            }
+        }
+    }
+
+    private void store(
+        StructuralTypeCache cache, StructuralTypeDefinition definition, String fingerprint,
+        Map<ClassName, JavaFile> files, Collection<InMemoryJavaFileObject> targets
+    ) {
+        try {
+            cache.store(definition.types, fingerprint, files.values(), targets.stream().collect(Collectors.toMap(
+                InMemoryJavaFileObject::getName,
+                InMemoryJavaFileObject::toByteArray
+            )));
+        } catch (IOException e) {
+            getLog().warn("Could not store structural types in cache", e);
+        }
+    }
+
+    private String toConfiguration(List<? extends Class<?>> structures) throws IOException {
+        StringBuilder builder = new StringBuilder()
+            .append("version=").append(version).append('\n')
+            .append("artifacts=").append(StructuralTypeCache.artifacts(
+                StructuralTypeMojo.class,
+                StructuralType.class,
+                CompoundOf.class
+            )).append('\n')
+            .append("java=").append(System.getProperty("java.version")).append('\n')
+            .append("subpackage=").append(subpackage).append('\n')
+            .append("jaxb=").append(jaxb).append('\n')
+            .append("richEnumerations=").append(richEnumerations).append('\n')
+            .append("subtyping=").append(subtyping).append('\n')
+            .append("normalizeIntersections=").append(normalizeIntersections).append('\n')
+            .append("normalizeEnumerations=").append(normalizeEnumerations).append('\n')
+            .append("normalizeSimpleNames=").append(normalizeSimpleNames).append('\n')
+            .append("exceptionOnEmptySetter=").append(exceptionOnEmptySetter).append('\n')
+            .append("nullableAccessors=").append(nullableAccessors).append('\n')
+            .append("cachedListProjections=").append(cachedListProjections).append('\n')
+            .append("cachedListConversions=").append(cachedListConversions).append('\n')
+            .append("iterativeCopies=").append(iterativeCopies).append('\n')
+            .append("typeDispatch=").append(typeDispatch).append('\n')
+            .append("finalClasses=").append(finalClasses).append('\n')
+            .append("methodSizeLimit=").append(methodSizeLimit).append('\n')
+            .append("jacksonModule=").append(jacksonModule).append('\n')
+            .append("mapProjections=").append(mapProjections).append('\n');
+        new TreeMap<>(interfaces).forEach((name, definition) -> builder
+            .append("interface=").append(name).append(':').append(definition.values).append('\n'));
+        translations.forEach(translation -> builder
+            .append("translation=").append(translation.type).append(':').append(new TreeMap<>(translation.values)).append('\n'));
+        if (renamings != null) {
+            renamings.forEach(renaming -> builder
+                .append("renaming=").append(renaming.pattern).append(':').append(renaming.replacement).append('\n'));
+        }
+        normalizations.forEach(normalization -> builder
+            .append("normalization=").append(normalization.pattern).append(':').append(normalization.replacement).append('\n'));
+        filters.forEach(filter -> builder
+            .append("filter=").append(filter.type).append(':').append(filter.properties).append('\n'));
+        if (namings != null) {
+            namings.forEach(naming -> builder
+                .append("naming=").append(naming.pattern).append(':').append(naming.priority).append('\n'));
+        }
+        structures.stream().map(Class::getName).sorted().forEach(name -> builder
+            .append("predefinition=").append(name).append('\n'));
+        return builder.toString();
+    }
+
     static class ConsumingWriter extends Writer {
 
         private final Consumer<String> consumer;
@@ -377,12 +712,47 @@ public class StructuralTypeMojo extends AbstractMojo {
         }
     }
 
+    static class Compilation {
+
+        private final StructuralTypeDefinition definition;
+
+        private final String fingerprint;
+
+        private final Map<ClassName, JavaFile> files;
+
+        private final Collection<InMemoryJavaFileObject> targets;
+
+        private final boolean restored;
+
+        private final Log log;
+
+        Compilation(
+            StructuralTypeDefinition definition, String fingerprint,
+            Map<ClassName, JavaFile> files, Collection<InMemoryJavaFileObject> targets,
+            boolean restored, Log log
+        ) {
+            this.definition = definition;
+            this.fingerprint = fingerprint;
+            this.files = files;
+            this.targets = targets;
+            this.restored = restored;
+            this.log = log;
+        }
+    }
+
     static class InMemoryJavaFileObject extends SimpleJavaFileObject {
 
         private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
 
-        InMemoryJavaFileObject(String className) throws URISyntaxException {
+        private final FileObject sibling;
+
+        InMemoryJavaFileObject(String className, FileObject sibling) throws URISyntaxException {
             super(new URI(null, null, className, null), Kind.CLASS);
+            this.sibling = sibling;
+        }
+
+        FileObject getSibling() {
+            return sibling;
         }
 
         @Override
@@ -416,7 +786,7 @@ public class StructuralTypeMojo extends AbstractMojo {
         ) {
             InMemoryJavaFileObject target;
             try {
-                target = new InMemoryJavaFileObject(className);
+                target = new InMemoryJavaFileObject(className, sibling);
             } catch (URISyntaxException e) {
                 throw new AssertionError(e);
             }
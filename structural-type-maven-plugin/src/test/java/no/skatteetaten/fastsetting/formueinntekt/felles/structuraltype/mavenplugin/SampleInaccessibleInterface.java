@@ -0,0 +1,8 @@
+package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.mavenplugin;
+
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api.StructureReference;
+
+interface SampleInaccessibleInterface<
+    @StructureReference("no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.mavenplugin.sample.SampleSingleFooStructure") T
+> {
+}
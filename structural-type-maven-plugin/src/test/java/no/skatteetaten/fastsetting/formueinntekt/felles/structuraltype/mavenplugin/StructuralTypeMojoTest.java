@@ -4,15 +4,22 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
+import javax.tools.ToolProvider;
 import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.api.PropertyDefinition;
+import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.mavenplugin.sample.SampleSingleFoo;
 import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.mavenplugin.sample.SampleTypedLeafBar;
 import no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.mavenplugin.sample.SampleTypedLeafFoo;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.handler.ArtifactHandler;
 import org.apache.maven.artifact.resolver.filter.ScopeArtifactFilter;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
 import org.apache.maven.plugin.testing.MojoRule;
 import org.apache.maven.plugin.testing.stubs.ArtifactStub;
 import org.apache.maven.plugin.testing.stubs.DefaultArtifactHandlerStub;
@@ -20,6 +27,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class StructuralTypeMojoTest {
 
@@ -52,6 +60,238 @@ public class StructuralTypeMojoTest {
             .resolve("sample")).isDirectoryContaining(path -> path.getFileName().toString().equals("SampleTypedLeafStructure.class"));
     }
 
+    @Test
+    public void can_apply_mojo_in_batch() throws Exception {
+        Path root = temporaryFolder.newFolder().toPath();
+        Files.copy(StructuralTypeMojoTest.class.getResourceAsStream("/pom.xml"), root.resolve("pom.xml"));
+        includeClassFile(root, SampleTypedLeafFoo.class);
+        includeClassFile(root, SampleTypedLeafBar.class);
+        includeClassFile(root, SampleSingleFoo.class);
+        StructuralTypeMojo mojo = (StructuralTypeMojo) mojoRule.lookupConfiguredMojo(root.toFile(), "structural-type");
+        mojo.project.setResolvedArtifacts(Collections.singleton(toArtifact(
+            "no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype",
+            "structural-type-api",
+            "1.12-SNAPSHOT",
+            PropertyDefinition.class
+        )));
+        mojo.project.setArtifactFilter(new ScopeArtifactFilter("compile"));
+        StructuralTypeDefinition definition = new StructuralTypeDefinition();
+        definition.types = Collections.singletonList(SampleSingleFoo.class.getName());
+        mojo.definitions = new ArrayList<>(mojo.definitions);
+        mojo.definitions.add(definition);
+        mojo.batch = true;
+        mojo.execute();
+        assertThat(root.resolve("target/classes")
+            .resolve(StructuralTypeMojoTest.class.getPackageName().replace('.', '/'))
+            .resolve("sample")).isDirectoryContaining(path -> path.getFileName().toString().equals("SampleTypedLeafStructure.class"))
+            .isDirectoryContaining(path -> path.getFileName().toString().equals("SampleSingleFooStructure.class"));
+    }
+
+    @Test
+    public void can_report_failing_definition_when_applying_mojo_in_batch() throws Exception {
+        Path root = temporaryFolder.newFolder().toPath();
+        Files.copy(StructuralTypeMojoTest.class.getResourceAsStream("/pom.xml"), root.resolve("pom.xml"));
+        includeClassFile(root, SampleTypedLeafFoo.class);
+        includeClassFile(root, SampleTypedLeafBar.class);
+        includeClassFile(root, SampleSingleFoo.class);
+        includeClassFile(root, SampleInaccessibleInterface.class);
+        StructuralTypeMojo mojo = (StructuralTypeMojo) mojoRule.lookupConfiguredMojo(root.toFile(), "structural-type");
+        mojo.project.setResolvedArtifacts(Collections.singleton(toArtifact(
+            "no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype",
+            "structural-type-api",
+            "1.12-SNAPSHOT",
+            PropertyDefinition.class
+        )));
+        mojo.project.setArtifactFilter(new ScopeArtifactFilter("compile"));
+        StructuralTypeDefinition definition = new StructuralTypeDefinition();
+        definition.types = Collections.singletonList(SampleSingleFoo.class.getName());
+        mojo.definitions = new ArrayList<>(mojo.definitions);
+        mojo.definitions.add(definition);
+        InterfaceDefintion inaccessible = new InterfaceDefintion();
+        inaccessible.values = Collections.singletonList(SampleInaccessibleInterface.class.getName());
+        mojo.interfaces = Collections.singletonMap(SampleSingleFoo.class.getName() + "Structure", inaccessible);
+        mojo.batch = true;
+        assertThatThrownBy(mojo::execute)
+            .isInstanceOf(MojoFailureException.class)
+            .hasMessageStartingWith("Failed to compile structural types for [[" + SampleSingleFoo.class.getName() + "]]")
+            .hasMessageNotContaining(SampleTypedLeafFoo.class.getName());
+    }
+
+    @Test
+    public void can_apply_mojo_after_definition_with_only_predefined_types() throws Exception {
+        Path dependency = temporaryFolder.newFolder().toPath();
+        Files.copy(StructuralTypeMojoTest.class.getResourceAsStream("/pom.xml"), dependency.resolve("pom.xml"));
+        includeClassFile(dependency, SampleTypedLeafFoo.class);
+        includeClassFile(dependency, SampleTypedLeafBar.class);
+        StructuralTypeMojo mojo = (StructuralTypeMojo) mojoRule.lookupConfiguredMojo(dependency.toFile(), "structural-type");
+        mojo.project.setResolvedArtifacts(Collections.singleton(toArtifact(
+            "no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype",
+            "structural-type-api",
+            "1.12-SNAPSHOT",
+            PropertyDefinition.class
+        )));
+        mojo.project.setArtifactFilter(new ScopeArtifactFilter("compile"));
+        mojo.execute();
+        Path root = temporaryFolder.newFolder().toPath();
+        Files.copy(StructuralTypeMojoTest.class.getResourceAsStream("/pom.xml"), root.resolve("pom.xml"));
+        includeClassFile(root, SampleTypedLeafFoo.class);
+        includeClassFile(root, SampleTypedLeafBar.class);
+        includeClassFile(root, SampleSingleFoo.class);
+        mojo = (StructuralTypeMojo) mojoRule.lookupConfiguredMojo(root.toFile(), "structural-type");
+        mojo.project.setResolvedArtifacts(Set.of(toArtifact(
+            "no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype",
+            "structural-type-api",
+            "1.12-SNAPSHOT",
+            PropertyDefinition.class
+        ), toArtifact(
+            "codes.rafael.structuraltype",
+            "structural-type-dependency",
+            "1.12-SNAPSHOT",
+            dependency.resolve("target/classes").toFile()
+        )));
+        mojo.project.setArtifactFilter(new ScopeArtifactFilter("compile"));
+        StructuralTypeDefinition definition = new StructuralTypeDefinition();
+        definition.types = Collections.singletonList(SampleSingleFoo.class.getName());
+        mojo.definitions = new ArrayList<>(mojo.definitions);
+        mojo.definitions.add(definition);
+        List<String> warnings = new ArrayList<>();
+        mojo.setLog(new SystemStreamLog() {
+            @Override
+            public void warn(CharSequence content) {
+                warnings.add(content.toString());
+            }
+        });
+        mojo.execute();
+        assertThat(warnings).contains("Did not create any structural types since all types are predefined");
+        assertThat(root.resolve("target/classes")
+            .resolve(StructuralTypeMojoTest.class.getPackageName().replace('.', '/'))
+            .resolve("sample")).isDirectoryContaining(path -> path.getFileName().toString().equals("SampleSingleFooStructure.class"))
+            .isDirectoryNotContaining(path -> path.getFileName().toString().equals("SampleTypedLeafStructure.class"));
+        assertThat(mojo.project.getCompileSourceRoots()).contains(new File(mojo.sources).getAbsolutePath());
+    }
+
+    @Test
+    public void can_apply_mojo_concurrently() throws Exception {
+        Path root = temporaryFolder.newFolder().toPath();
+        Files.copy(StructuralTypeMojoTest.class.getResourceAsStream("/pom.xml"), root.resolve("pom.xml"));
+        includeClassFile(root, SampleTypedLeafFoo.class);
+        includeClassFile(root, SampleTypedLeafBar.class);
+        includeClassFile(root, SampleSingleFoo.class);
+        StructuralTypeMojo mojo = (StructuralTypeMojo) mojoRule.lookupConfiguredMojo(root.toFile(), "structural-type");
+        mojo.project.setResolvedArtifacts(Collections.singleton(toArtifact(
+            "no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype",
+            "structural-type-api",
+            "1.12-SNAPSHOT",
+            PropertyDefinition.class
+        )));
+        mojo.project.setArtifactFilter(new ScopeArtifactFilter("compile"));
+        StructuralTypeDefinition definition = new StructuralTypeDefinition();
+        definition.types = Collections.singletonList(SampleSingleFoo.class.getName());
+        mojo.definitions = new ArrayList<>(mojo.definitions);
+        mojo.definitions.add(definition);
+        mojo.threads = 2;
+        List<String> messages = new ArrayList<>();
+        mojo.setLog(new SystemStreamLog() {
+            @Override
+            public void info(CharSequence content) {
+                messages.add(content.toString());
+            }
+        });
+        mojo.execute();
+        assertThat(messages).endsWith(
+            "Processing 2 definitions using 2 threads",
+            "Creating structural types for:\n - " + SampleTypedLeafFoo.class.getName() + "\n - " + SampleTypedLeafBar.class.getName(),
+            "Successfully wrote structural types: 4 source files compiled",
+            "Creating structural types for:\n - " + SampleSingleFoo.class.getName(),
+            "Successfully wrote structural types: 3 source files compiled"
+        );
+        assertThat(root.resolve("target/classes")
+            .resolve(StructuralTypeMojoTest.class.getPackageName().replace('.', '/'))
+            .resolve("sample")).isDirectoryContaining(path -> path.getFileName().toString().equals("SampleTypedLeafStructure.class"))
+            .isDirectoryContaining(path -> path.getFileName().toString().equals("SampleSingleFooStructure.class"));
+    }
+
+    @Test
+    public void can_report_first_failure_when_applying_mojo_concurrently() throws Exception {
+        Path root = temporaryFolder.newFolder().toPath();
+        Files.copy(StructuralTypeMojoTest.class.getResourceAsStream("/pom.xml"), root.resolve("pom.xml"));
+        includeClassFile(root, SampleTypedLeafFoo.class);
+        includeClassFile(root, SampleTypedLeafBar.class);
+        StructuralTypeMojo mojo = (StructuralTypeMojo) mojoRule.lookupConfiguredMojo(root.toFile(), "structural-type");
+        mojo.project.setResolvedArtifacts(Collections.singleton(toArtifact(
+            "no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype",
+            "structural-type-api",
+            "1.12-SNAPSHOT",
+            PropertyDefinition.class
+        )));
+        mojo.project.setArtifactFilter(new ScopeArtifactFilter("compile"));
+        mojo.definitions = new ArrayList<>(mojo.definitions);
+        for (String type : List.of("sample.MissingFoo", "sample.MissingBar")) {
+            StructuralTypeDefinition definition = new StructuralTypeDefinition();
+            definition.types = Collections.singletonList(type);
+            mojo.definitions.add(definition);
+        }
+        mojo.threads = 3;
+        assertThatThrownBy(mojo::execute)
+            .isInstanceOf(MojoFailureException.class)
+            .hasMessage("Could not find class on class path: sample.MissingFoo");
+    }
+
+    @Test
+    public void can_apply_mojo_incrementally() throws Exception {
+        Path root = temporaryFolder.newFolder().toPath();
+        Files.copy(StructuralTypeMojoTest.class.getResourceAsStream("/pom.xml"), root.resolve("pom.xml"));
+        includeClassFile(root, SampleTypedLeafFoo.class);
+        includeClassFile(root, SampleTypedLeafBar.class);
+        Path source = root.resolve("target/generated-sources/structural-types")
+            .resolve(StructuralTypeMojoTest.class.getPackageName().replace('.', '/'))
+            .resolve("sample/SampleTypedLeafStructure.java");
+        toIncrementalMojo(root).execute();
+        assertThat(root.resolve("target/structural-type-cache")).isNotEmptyDirectory();
+        try (Stream<Path> stream = Files.walk(root.resolve("target/structural-type-cache"))) {
+            Path cached = stream.filter(path -> path.endsWith("SampleTypedLeafStructure.java")).findFirst().orElseThrow();
+            Files.writeString(cached, Files.readString(cached) + "// cached");
+        }
+        Files.delete(source);
+        toIncrementalMojo(root).execute();
+        assertThat(source).content().endsWith("// cached");
+        StructuralTypeMojo mojo = toIncrementalMojo(root);
+        mojo.exceptionOnEmptySetter = true;
+        mojo.execute();
+        assertThat(source).content().doesNotEndWith("// cached").doesNotContain("getQux");
+        Path sample = temporaryFolder.newFolder().toPath().resolve("SampleTypedLeafFoo.java");
+        Files.writeString(sample, "package " + SampleTypedLeafFoo.class.getPackageName() + ";\n"
+            + "public class SampleTypedLeafFoo {\n"
+            + "    private String foo, qux;\n"
+            + "    public String getFoo() { return foo; }\n"
+            + "    public void setFoo(String foo) { this.foo = foo; }\n"
+            + "    public String getQux() { return qux; }\n"
+            + "    public void setQux(String qux) { this.qux = qux; }\n"
+            + "}\n");
+        assertThat(ToolProvider.getSystemJavaCompiler().run(
+            null, null, null,
+            "-d", root.resolve("target/classes").toString(),
+            sample.toString()
+        )).isEqualTo(0);
+        mojo = toIncrementalMojo(root);
+        mojo.exceptionOnEmptySetter = true;
+        mojo.execute();
+        assertThat(source).content().contains("getQux");
+    }
+
+    private StructuralTypeMojo toIncrementalMojo(Path root) throws Exception {
+        StructuralTypeMojo mojo = (StructuralTypeMojo) mojoRule.lookupConfiguredMojo(root.toFile(), "structural-type");
+        mojo.project.setResolvedArtifacts(Collections.singleton(toArtifact(
+            "no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype",
+            "structural-type-api",
+            "1.12-SNAPSHOT",
+            PropertyDefinition.class
+        )));
+        mojo.project.setArtifactFilter(new ScopeArtifactFilter("compile"));
+        mojo.incremental = true;
+        return mojo;
+    }
+
     private static void includeClassFile(Path root, Class<?> type) throws IOException {
         Path file = root.resolve("target/classes").resolve(type.getName().replace('.', '/') + ".class");
         Files.createDirectories(file.getParent());
@@ -59,6 +299,10 @@ public class StructuralTypeMojoTest {
     }
 
     private static Artifact toArtifact(String groupId, String artifiactId, String version, Class<?> hook) {
+        return toArtifact(groupId, artifiactId, version, new File(hook.getProtectionDomain().getCodeSource().getLocation().getFile()));
+    }
+
+    private static Artifact toArtifact(String groupId, String artifiactId, String version, File file) {
         DefaultArtifactHandlerStub handler = new DefaultArtifactHandlerStub("jar", "");
         handler.setAddedToClasspath(true);
         ArtifactStub artifact = new ArtifactStub() {
@@ -71,7 +315,7 @@ public class StructuralTypeMojoTest {
         artifact.setArtifactId(artifiactId);
         artifact.setVersion(version);
         artifact.setScope("compile");
-        artifact.setFile(new File(hook.getProtectionDomain().getCodeSource().getLocation().getFile()));
+        artifact.setFile(file);
         return artifact;
     }
 }
@@ -0,0 +1,14 @@
+package no.skatteetaten.fastsetting.formueinntekt.felles.structuraltype.mavenplugin.sample;
+
+public class SampleSingleFoo {
+
+    private String foo;
+
+    public String getFoo() {
+        return foo;
+    }
+
+    public void setFoo(String foo) {
+        this.foo = foo;
+    }
+}